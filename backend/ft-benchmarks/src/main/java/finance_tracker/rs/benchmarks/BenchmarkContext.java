@@ -0,0 +1,46 @@
+package finance_tracker.rs.benchmarks;
+
+import finance_tracker.rs.RsApplication;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.UserRole;
+import finance_tracker.rs.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// starts the real application (without the web server) against the database from application.properties,
+// override it with -Dspring.datasource.url=... when running the benchmarks
+public final class BenchmarkContext {
+    public static final String USERNAME = "jmh-benchmark";
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... args) {
+        List<String> all = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+        all.addAll(List.of(args));
+        return SpringApplication.run(RsApplication.class, all.toArray(new String[0]));
+    }
+
+    public static User benchmarkUser(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        return userRepository.findByUsername(USERNAME).orElseGet(() -> {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setPassword("unused");
+            user.setRole(UserRole.ROLE_CLIENT);
+            user.setEnabled(true);
+            return userRepository.save(user);
+        });
+    }
+}
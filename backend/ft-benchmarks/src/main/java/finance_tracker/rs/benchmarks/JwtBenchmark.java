@@ -0,0 +1,45 @@
+package finance_tracker.rs.benchmarks;
+
+import finance_tracker.rs.configuration.JwtUtil;
+import finance_tracker.rs.model.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private ConfigurableApplicationContext context;
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        jwtUtil = context.getBean(JwtUtil.class);
+        user = BenchmarkContext.benchmarkUser(context);
+        token = jwtUtil.generateToken(user);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractAllClaims(token);
+    }
+}
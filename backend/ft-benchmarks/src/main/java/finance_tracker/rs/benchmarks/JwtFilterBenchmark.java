@@ -0,0 +1,57 @@
+package finance_tracker.rs.benchmarks;
+
+import finance_tracker.rs.configuration.JwtFilter;
+import finance_tracker.rs.configuration.JwtUtil;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// one authenticated request through the filter, with the user loaded from the database or built from claims
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+    @Param({"false", "true"})
+    private boolean principalFromClaims;
+
+    private ConfigurableApplicationContext context;
+    private JwtFilter jwtFilter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("--jwt.principal-from-claims=" + principalFromClaims);
+        jwtFilter = context.getBean(JwtFilter.class);
+        authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken(BenchmarkContext.benchmarkUser(context));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/transactions");
+        request.setServletPath("/transactions");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            jwtFilter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,55 @@
+package finance_tracker.rs.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finance_tracker.rs.model.dto.PageResponse;
+import finance_tracker.rs.model.dto.TransactionView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the response body of GET /transactions, serialized with the application's ObjectMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+    @Param({"10", "50", "200"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private PageResponse<TransactionView> page;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        List<TransactionView> content = new ArrayList<>(pageSize);
+        LocalDateTime date = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new TransactionView((long) i, i % 3 == 0, date.plusHours(i), 10.0 + i, i % 2 == 0 ? "Groceries" : "Salary"));
+        }
+        page = PageResponse.of(new PageImpl<>(content, PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "date")), 10_000));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
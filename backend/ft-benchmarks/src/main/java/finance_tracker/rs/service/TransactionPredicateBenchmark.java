@@ -0,0 +1,70 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.benchmarks.BenchmarkContext;
+import finance_tracker.rs.model.Transaction;
+import finance_tracker.rs.model.dto.TransactionFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// lives in the service package because buildPredicates is package-private
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionPredicateBenchmark {
+    @Param({"empty", "full"})
+    private String filter;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private EntityManager entityManager;
+    private CriteriaBuilder cb;
+    private TransactionFilter transactionFilter;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        cb = entityManager.getCriteriaBuilder();
+        transactionFilter = filter.equals("full")
+                ? new TransactionFilter(false, LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 12, 31, 0, 0), 10.0, 500.0, "Food")
+                : new TransactionFilter(null, null, null, null, null, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Predicate> buildPredicates() {
+        CriteriaQuery<Transaction> cq = cb.createQuery(Transaction.class);
+        Root<Transaction> root = cq.from(Transaction.class);
+        return transactionService.buildPredicates(cb, root, transactionFilter);
+    }
+
+    // includes Hibernate turning the criteria tree into a query, which is what every list request pays
+    @Benchmark
+    public TypedQuery<Transaction> buildQuery() {
+        CriteriaQuery<Transaction> cq = cb.createQuery(Transaction.class);
+        Root<Transaction> root = cq.from(Transaction.class);
+        cq.where(transactionService.buildPredicates(cb, root, transactionFilter).toArray(new Predicate[0]));
+        cq.orderBy(cb.desc(root.get("date")));
+        return entityManager.createQuery(cq);
+    }
+}
@@ -0,0 +1,86 @@
+package finance_tracker.rs.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+// runs every hash on a small pool of its own, so a login storm can't take all request threads and CPUs
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolTaskExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.initialize();
+
+        encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(meterRegistry);
+        matchesTimer = Timer.builder("password.hash").tag("operation", "matches").register(meterRegistry);
+        rejected = Counter.builder("password.hash.rejected").register(meterRegistry);
+        Gauge.builder("password.hash.queue", executor, ThreadPoolTaskExecutor::getQueueSize).register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolTaskExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // only reads the cost from the stored hash, cheap enough for the calling thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, try again later");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -22,10 +22,12 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class Configuration1 {
     private JwtFilter jwtFilter;
+    private RateLimitFilter rateLimitFilter;
     private AuthenticationProvider authenticationProvider;
 
-    public Configuration1(JwtFilter jwtFilter, AuthenticationProvider authenticationProvider) {
+    public Configuration1(JwtFilter jwtFilter, RateLimitFilter rateLimitFilter, AuthenticationProvider authenticationProvider) {
         this.jwtFilter = jwtFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.authenticationProvider = authenticationProvider;
     }
 
@@ -40,13 +42,17 @@ public class Configuration1 {
                         .requestMatchers(HttpMethod.GET, "/categories").permitAll()
                         .requestMatchers(HttpMethod.POST, "/categories").permitAll()
                         .requestMatchers(HttpMethod.OPTIONS).permitAll()
+                        // let error responses (400, 429, ...) through instead of turning them into 403
+                        .requestMatchers("/error").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authenticationProvider(authenticationProvider)
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // after JwtFilter, so it knows whose bucket to charge
+                .addFilterAfter(rateLimitFilter, JwtFilter.class);
 
         return httpSecurity.build();
     }
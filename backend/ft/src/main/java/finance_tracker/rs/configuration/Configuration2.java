@@ -1,6 +1,9 @@
 package finance_tracker.rs.configuration;
 
+import finance_tracker.rs.model.User;
 import finance_tracker.rs.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -13,26 +16,40 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @Configuration
 public class Configuration2 {
     private UserRepository userRepository;
+    private ReadYourWrites readYourWrites;
 
-    public Configuration2(UserRepository userRepository) {
+    public Configuration2(UserRepository userRepository, ReadYourWrites readYourWrites) {
         this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
     }
 
+    // on the primary: a replica may not have the user who just registered or changed their password yet
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return username -> readYourWrites.onPrimary(() -> userRepository.findByUsername(username))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.bcrypt.strength}") int strength,
+            @Value("${security.bcrypt.threads}") int threads,
+            @Value("${security.bcrypt.queue-capacity}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity, meterRegistry);
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailsService());
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // hashes stored with a lower cost than security.bcrypt.strength are re-hashed on the next successful login
+        authenticationProvider.setUserDetailsPasswordService((user, newPassword) -> {
+            User u = (User) user;
+            u.setPassword(newPassword);
+            return readYourWrites.onPrimary(() -> userRepository.save(u));
+        });
         return authenticationProvider;
     }
 }
@@ -0,0 +1,104 @@
+package finance_tracker.rs.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// A fair semaphore in front of the pool: a connection holds a permit until it is closed. With virtual threads
+// there is no request thread limit any more, so this is what keeps thousands of requests waiting in arrival
+// order instead of all of them spinning on Hikari's handoff queue and timing out at random.
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public ConnectionLimitingDataSource(DataSource target, int maxConcurrent, long acquireTimeoutMs, MeterRegistry meterRegistry) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+
+        waitTimer = Timer.builder("datasource.limiter.wait").register(meterRegistry);
+        rejected = Counter.builder("datasource.limiter.rejected").register(meterRegistry);
+        Gauge.builder("datasource.limiter.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a connection permit")
+                .register(meterRegistry);
+        Gauge.builder("datasource.limiter.available", permits, Semaphore::availablePermits).register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return limited(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return limited(() -> super.getConnection(username, password));
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", e);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new SQLTransientConnectionException("No connection permit within " + acquireTimeoutMs + "ms, "
+                    + permits.getQueueLength() + " waiting");
+        }
+    }
+
+    // the permit goes back on the first close, or right away if the pool fails to hand out a connection
+    private Connection limited(ConnectionSupplier supplier) throws SQLException {
+        Connection target;
+        try {
+            target = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> method.invoke(target, args);
+                        };
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,41 @@
+package finance_tracker.rs.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Puts ConnectionLimitingDataSource under the "dataSource" bean, whether Spring Boot built a single pool or
+// ReplicaDataSourceConfiguration built the routing one. In the routing case it goes behind the lazy proxy,
+// so a transaction that never runs a statement never waits for a permit.
+@Configuration
+@ConditionalOnProperty(name = "datasource.limiter.enabled", havingValue = "true")
+public class DataSourceLimiterConfiguration {
+
+    // static and with lazy lookups, so the post processor does not pull other beans in early
+    @Bean
+    public static BeanPostProcessor connectionLimiter(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!beanName.equals("dataSource") || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                int maxConcurrent = environment.getRequiredProperty("datasource.limiter.max-concurrent", Integer.class);
+                long acquireTimeoutMs = environment.getRequiredProperty("datasource.limiter.acquire-timeout-ms", Long.class);
+                if (bean instanceof LazyConnectionDataSourceProxy lazy) {
+                    lazy.setTargetDataSource(new ConnectionLimitingDataSource(
+                            lazy.getTargetDataSource(), maxConcurrent, acquireTimeoutMs, meterRegistry.getObject()));
+                    return lazy;
+                }
+                return new ConnectionLimitingDataSource(dataSource, maxConcurrent, acquireTimeoutMs, meterRegistry.getObject());
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package finance_tracker.rs.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// verified claims by token, so a token's signature is checked once and not on every request
+@Component
+public class JwtClaimsCache {
+    private final JwtUtil jwtUtil;
+
+    @Value("${jwt.cache.max-size}")
+    private long maxSize;
+
+    private Cache<String, Claims> cache;
+
+    public JwtClaimsCache(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    // an entry never outlives the token it was verified from
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        if (claims.getExpiration() == null) {
+                            return 0;
+                        }
+                        long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public Claims verify(String token) {
+        return cache.get(token, jwtUtil::extractAllClaims);
+    }
+}
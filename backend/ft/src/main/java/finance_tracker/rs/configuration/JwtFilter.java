@@ -1,7 +1,8 @@
 package finance_tracker.rs.configuration;
 
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.UserRole;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.SignatureException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,9 +23,12 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
     private final UserDetailsService userDetailsService;
+    private final JwtClaimsCache jwtClaimsCache;
+    private final UserStatusCache userStatusCache;
+    private final ReadYourWrites readYourWrites;
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    @Value("${jwt.principal-from-claims}")
+    private boolean principalFromClaims;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -42,17 +46,26 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
+        String username;
         try {
             String token = authHeader.substring(7);
-            Claims claims = Jwts.parser()
-                    .setSigningKey(secretKey)
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = jwtClaimsCache.verify(token);
 
-            String username = claims.getSubject();
+            username = claims.getSubject();
+            readYourWrites.bind(username);
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails;
+                // tokens issued before the id claim existed still go to the database
+                if (principalFromClaims && claims.get("id") != null) {
+                    if (!userStatusCache.isEnabled(username)) {
+                        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "User is disabled");
+                        return;
+                    }
+                    userDetails = userFromClaims(claims);
+                } else {
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                }
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -61,13 +74,37 @@ public class JwtFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         } catch (SignatureException e) {
+            readYourWrites.unbind();
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT signature");
             return;
         } catch (Exception e) {
+            readYourWrites.unbind();
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT token");
             return;
         }
 
-        filterChain.doFilter(request, response);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // anything but a read may have changed this user's data
+            if (username != null && !isRead(request)) {
+                readYourWrites.recordWrite(username);
+            }
+            readYourWrites.unbind();
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return method.equals("GET") || method.equals("HEAD") || method.equals("OPTIONS");
+    }
+
+    private User userFromClaims(Claims claims) {
+        User user = new User();
+        user.setId(claims.get("id", Long.class));
+        user.setUsername(claims.getSubject());
+        user.setRole(UserRole.valueOf(claims.get("role", String.class)));
+        user.setEnabled(true);
+        return user;
     }
 }
\ No newline at end of file
@@ -44,6 +44,7 @@ public class JwtUtil {
 
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("id", user.getId());
         claims.put("username", user.getUsername());
         claims.put("role", user.getRole());
         claims.put("enabled", user.isEnabled());
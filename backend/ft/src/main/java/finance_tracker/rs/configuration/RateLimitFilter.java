@@ -0,0 +1,149 @@
+package finance_tracker.rs.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Runs right after JwtFilter: one token bucket per authenticated user, and per client address for login and
+// register (and anything else without a user). Expensive endpoints cost more tokens than a plain read.
+// Buckets live in a bounded cache, split over the cache's hash segments, and are dropped after sitting idle,
+// when they would be full again anyway.
+//
+// The client address is request.getRemoteAddr(); behind a proxy set server.forward-headers-strategy.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled}")
+    private boolean enabled;
+
+    @Value("${rate-limit.capacity}")
+    private double capacity;
+
+    @Value("${rate-limit.refill-per-second}")
+    private double refillPerSecond;
+
+    @Value("${rate-limit.login.capacity}")
+    private double loginCapacity;
+
+    @Value("${rate-limit.login.refill-per-minute}")
+    private double loginRefillPerMinute;
+
+    @Value("${rate-limit.idle-minutes}")
+    private long idleMinutes;
+
+    @Value("${rate-limit.max-buckets}")
+    private long maxBuckets;
+
+    @Value("${rate-limit.cost.rows-per-token}")
+    private int rowsPerToken;
+
+    @Value("${rate-limit.cost.export}")
+    private double exportCost;
+
+    @Value("${rate-limit.cost.import}")
+    private double importCost;
+
+    @Value("${rate-limit.cost.bulk}")
+    private double bulkCost;
+
+    private Cache<String, TokenBucket> buckets;
+    private Counter userRejected;
+    private Counter addressRejected;
+
+    public RateLimitFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+        userRejected = Counter.builder("rate-limit.rejected").tag("key", "user").register(meterRegistry);
+        addressRejected = Counter.builder("rate-limit.rejected").tag("key", "address").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || request.getMethod().equals("OPTIONS");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        long now = System.nanoTime();
+
+        long waitNanos;
+        boolean byUser = authentication != null && authentication.isAuthenticated()
+                && !path.equals("/users/login") && !path.equals("/users/register");
+        if (byUser) {
+            TokenBucket bucket = buckets.get("user:" + authentication.getName(), k -> new TokenBucket(capacity, refillPerSecond, now));
+            waitNanos = bucket.tryTake(cost(request, path), now);
+        } else {
+            // login and register hash a password, so their bucket is much smaller
+            boolean login = path.equals("/users/login") || path.equals("/users/register");
+            String key = (login ? "login:" : "address:") + request.getRemoteAddr();
+            TokenBucket bucket = buckets.get(key, k -> login
+                    ? new TokenBucket(loginCapacity, loginRefillPerMinute / 60, now)
+                    : new TokenBucket(capacity, refillPerSecond, now));
+            waitNanos = bucket.tryTake(login ? 1 : cost(request, path), now);
+        }
+
+        if (waitNanos > 0) {
+            (byUser ? userRejected : addressRejected).increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, retry in " + retryAfter + "s");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // tokens a request takes: lists by page size, exports, imports and bulk changes by a flat weight
+    private double cost(HttpServletRequest request, String path) {
+        String method = request.getMethod();
+        if (method.equals("GET") && (path.equals("/transactions") || path.equals("/transactions/seek"))) {
+            return 1 + pageSize(request) / rowsPerToken;
+        }
+        if (path.equals("/transactions/export")) {
+            return exportCost;
+        }
+        if (path.equals("/transactions/import")) {
+            return importCost;
+        }
+        if ((method.equals("DELETE") && path.equals("/transactions")) || path.equals("/transactions/category")) {
+            return bulkCost;
+        }
+        return 1;
+    }
+
+    private static int pageSize(HttpServletRequest request) {
+        try {
+            String size = request.getParameter("size");
+            return size == null ? 0 : Math.max(0, Integer.parseInt(size));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
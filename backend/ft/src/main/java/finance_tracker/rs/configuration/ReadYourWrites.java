@@ -0,0 +1,66 @@
+package finance_tracker.rs.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Which reads must stay on the primary: those of a user who wrote within the last few seconds, so they
+// never see a replica that has not caught up with their own change, and those wrapped in onPrimary.
+// JwtFilter binds the requesting user to the thread for the length of the request.
+@Component
+public class ReadYourWrites {
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    @Value("${datasource.replica.read-your-writes-seconds}")
+    private long windowSeconds;
+
+    private Cache<String, Boolean> recentWriters;
+
+    @PostConstruct
+    public void init() {
+        recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+                .build();
+    }
+
+    public void bind(String username) {
+        CURRENT_USER.set(username);
+    }
+
+    public void unbind() {
+        CURRENT_USER.remove();
+    }
+
+    // restarts the window, so it runs from the user's last write
+    public void recordWrite(String username) {
+        recentWriters.put(username, Boolean.TRUE);
+    }
+
+    // for reads that must not lag, e.g. reloading a cache right after a commit
+    public <T> T onPrimary(Supplier<T> read) {
+        Boolean outer = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (outer == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    boolean pinnedToPrimary() {
+        if (PRIMARY_ONLY.get() != null) {
+            return true;
+        }
+        String username = CURRENT_USER.get();
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+}
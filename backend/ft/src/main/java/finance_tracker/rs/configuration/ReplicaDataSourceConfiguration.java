@@ -0,0 +1,68 @@
+package finance_tracker.rs.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Only active when datasource.replica.urls is set; without it Spring Boot builds the single pool as before.
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.urls")
+public class ReplicaDataSourceConfiguration {
+
+    @Value("${datasource.replica.urls}")
+    private List<String> urls;
+
+    @Value("${datasource.replica.username:${spring.datasource.username}}")
+    private String username;
+
+    @Value("${datasource.replica.password:${spring.datasource.password}}")
+    private String password;
+
+    @Value("${datasource.replica.maximum-pool-size}")
+    private int maximumPoolSize;
+
+    // still takes spring.datasource.* and spring.datasource.hikari.*
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource, ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWrites);
+    }
+
+    // what JPA, Flyway and JdbcTemplate use
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
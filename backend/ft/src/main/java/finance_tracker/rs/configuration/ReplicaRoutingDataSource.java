@@ -0,0 +1,49 @@
+package finance_tracker.rs.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Read-only transactions go to the replicas in turn, everything else to the primary. It decides when a
+// connection is first used, so it has to sit behind a LazyConnectionDataSourceProxy: by then the
+// transaction has started and its read-only flag is known.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, ReadYourWrites readYourWrites) {
+        this.replicas = replicas;
+        this.readYourWrites = readYourWrites;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || readYourWrites.pinnedToPrimary()) {
+            return PRIMARY;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    // the primary is a bean of its own and closed by the container
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
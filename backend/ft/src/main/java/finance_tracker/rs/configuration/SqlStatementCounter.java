@@ -0,0 +1,50 @@
+package finance_tracker.rs.configuration;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Hibernate hands every statement it prepares to this inspector; while a request is open on the
+// current thread we count them, and how often each distinct statement repeats (the N+1 signature).
+public class SqlStatementCounter implements StatementInspector {
+    private static final int MAX_DISTINCT = 100;
+    private static final ThreadLocal<Tally> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Tally tally = CURRENT.get();
+        if (tally != null) {
+            tally.total++;
+            if (tally.bySql.size() < MAX_DISTINCT || tally.bySql.containsKey(sql)) {
+                tally.bySql.merge(sql, 1, Integer::sum);
+            }
+        }
+        return sql;
+    }
+
+    static void begin() {
+        CURRENT.set(new Tally());
+    }
+
+    static Tally end() {
+        Tally tally = CURRENT.get();
+        CURRENT.remove();
+        return tally;
+    }
+
+    static class Tally {
+        private int total;
+        private final Map<String, Integer> bySql = new HashMap<>();
+
+        int total() {
+            return total;
+        }
+
+        Map.Entry<String, Integer> mostRepeated() {
+            return bySql.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .orElse(null);
+        }
+    }
+}
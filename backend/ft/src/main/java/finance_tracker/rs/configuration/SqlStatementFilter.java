@@ -0,0 +1,75 @@
+package finance_tracker.rs.configuration;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Runs ahead of the security filters so the user lookup in JwtFilter is counted too.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.request.max-statements}")
+    private int maxStatements;
+
+    @Value("${sql.request.max-repeats}")
+    private int maxRepeats;
+
+    public SqlStatementFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.Tally tally = SqlStatementCounter.end();
+            record(request, tally);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Tally tally) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary.builder("http.server.requests.sql")
+                .description("SQL statements run by one request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(tally.total());
+
+        Map.Entry<String, Integer> repeated = tally.mostRepeated();
+        boolean tooMany = tally.total() > maxStatements;
+        boolean nPlusOne = repeated != null && repeated.getValue() > maxRepeats;
+        if (tooMany || nPlusOne) {
+            meterRegistry.counter("http.server.requests.sql.flagged", "method", request.getMethod(), "uri", uri).increment();
+            log.warn("{} {} ran {} SQL statements, the most repeated one {} times: {}",
+                    request.getMethod(), uri, tally.total(), repeated.getValue(), abbreviate(repeated.getKey()));
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() > 200 ? flat.substring(0, 200) + "..." : flat;
+    }
+}
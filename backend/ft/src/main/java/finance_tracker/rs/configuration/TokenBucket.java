@@ -0,0 +1,35 @@
+package finance_tracker.rs.configuration;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Lock-free token bucket: the state is one immutable value swapped with compare-and-set, refilled lazily
+// from the time that passed since the last take, so an idle bucket costs nothing.
+class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final AtomicReference<State> state;
+
+    TokenBucket(double capacity, double tokensPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.state = new AtomicReference<>(new State(capacity, now));
+    }
+
+    // 0 if cost tokens were taken, otherwise the nanos until there will be enough
+    long tryTake(double cost, long now) {
+        // a cost above the capacity could never be paid, it takes the whole bucket instead
+        double needed = Math.min(cost, capacity);
+        while (true) {
+            State current = state.get();
+            double tokens = Math.min(capacity, current.tokens() + Math.max(0, now - current.at()) * tokensPerNano);
+            if (tokens < needed) {
+                return (long) Math.ceil((needed - tokens) / tokensPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - needed, Math.max(now, current.at())))) {
+                return 0;
+            }
+        }
+    }
+
+    private record State(double tokens, long at) {}
+}
@@ -0,0 +1,58 @@
+package finance_tracker.rs.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// short-lived "is this user still enabled" answers for principals built from token claims
+@Component
+public class UserStatusCache {
+    private final UserRepository userRepository;
+    private final ReadYourWrites readYourWrites;
+
+    @Value("${jwt.user-cache.ttl-seconds}")
+    private long ttlSeconds;
+
+    private Cache<String, Boolean> enabled;
+
+    public UserStatusCache(UserRepository userRepository, ReadYourWrites readYourWrites) {
+        this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @PostConstruct
+    public void init() {
+        enabled = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // on the primary, or a user the replica hasn't caught up with would be cached as disabled for the whole ttl
+    public boolean isEnabled(String username) {
+        return enabled.get(username, u -> readYourWrites.onPrimary(() -> userRepository.findByUsername(u))
+                .map(User::isEnabled).orElse(false));
+    }
+
+    // after the commit, or a request in between reads the row still enabled and caches it for the whole ttl
+    public void evictAfterCommit(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enabled.invalidate(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enabled.invalidate(username);
+            }
+        });
+    }
+}
@@ -1,7 +1,11 @@
 package finance_tracker.rs.controller;
 
 import finance_tracker.rs.model.Category;
-import finance_tracker.rs.repository.CategoryRepository;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.CategorySuggestion;
+import finance_tracker.rs.service.CategoryDictionary;
+import finance_tracker.rs.service.CategorySearchService;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -11,20 +15,31 @@ import java.util.List;
 @CrossOrigin
 public class CategoryController {
 
-    private final CategoryRepository categoryRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final CategorySearchService categorySearchService;
 
-    public CategoryController(CategoryRepository categoryRepository) {
-        this.categoryRepository = categoryRepository;
+    public CategoryController(CategoryDictionary categoryDictionary, CategorySearchService categorySearchService) {
+        this.categoryDictionary = categoryDictionary;
+        this.categorySearchService = categorySearchService;
+    }
+
+    @GetMapping("/search")
+    public List<CategorySuggestion> search(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal User user) {
+        return categorySearchService.search(q, Math.max(1, Math.min(limit, 50)), user);
     }
 
     @GetMapping
     public List<Category> getAll() {
-        return categoryRepository.findAll();
+        return categoryDictionary.all();
     }
 
+    // names are unique, adding an existing one returns it
     @PostMapping
     public Category addCategory(@RequestBody Category category) {
-        return categoryRepository.save(category);
+        return categoryDictionary.resolve(category.getName());
     }
 }
 
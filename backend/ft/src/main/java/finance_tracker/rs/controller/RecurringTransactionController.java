@@ -0,0 +1,41 @@
+package finance_tracker.rs.controller;
+
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.RecurringTransactionDto;
+import finance_tracker.rs.model.dto.RecurringTransactionView;
+import finance_tracker.rs.service.RecurringTransactionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/recurring-transactions")
+@CrossOrigin
+public class RecurringTransactionController {
+    private final RecurringTransactionService recurringTransactionService;
+
+    public RecurringTransactionController(RecurringTransactionService recurringTransactionService) {
+        this.recurringTransactionService = recurringTransactionService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<RecurringTransactionView>> getRecurringTransactions(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(recurringTransactionService.getRecurringTransactions(user));
+    }
+
+    @PostMapping
+    public ResponseEntity<RecurringTransactionView> createRecurringTransaction(@RequestBody RecurringTransactionDto dto, @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(recurringTransactionService.createRecurringTransaction(dto, user));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRecurringTransaction(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        if (recurringTransactionService.deleteRecurringTransaction(id, user)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -2,15 +2,36 @@ package finance_tracker.rs.controller;
 
 
 import finance_tracker.rs.model.Transaction;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.BulkSelection;
+import finance_tracker.rs.model.dto.BulkUpdateResult;
+import finance_tracker.rs.model.dto.CategoryChange;
+import finance_tracker.rs.model.dto.CursorSlice;
+import finance_tracker.rs.model.dto.ImportResult;
+import finance_tracker.rs.model.dto.PageResponse;
 import finance_tracker.rs.model.dto.TransactionDto;
 import finance_tracker.rs.model.dto.TransactionFilter;
+import finance_tracker.rs.model.dto.TransactionSummary;
+import finance_tracker.rs.model.dto.TransactionView;
+import finance_tracker.rs.service.DataVersionService;
+import finance_tracker.rs.service.TransactionBulkService;
+import finance_tracker.rs.service.TransactionExportService;
+import finance_tracker.rs.service.TransactionImportService;
 import finance_tracker.rs.service.TransactionService;
-import org.springframework.data.domain.Page;
+import finance_tracker.rs.service.TransactionSummaryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -18,23 +39,35 @@ import java.util.Optional;
 @CrossOrigin
 public class TransactionController {
     private final TransactionService transactionService;
+    private final TransactionSummaryService transactionSummaryService;
+    private final TransactionImportService transactionImportService;
+    private final TransactionExportService transactionExportService;
+    private final TransactionBulkService transactionBulkService;
+    private final DataVersionService dataVersionService;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, TransactionSummaryService transactionSummaryService, TransactionImportService transactionImportService, TransactionExportService transactionExportService, TransactionBulkService transactionBulkService, DataVersionService dataVersionService) {
         this.transactionService = transactionService;
+        this.transactionSummaryService = transactionSummaryService;
+        this.transactionImportService = transactionImportService;
+        this.transactionExportService = transactionExportService;
+        this.transactionBulkService = transactionBulkService;
+        this.dataVersionService = dataVersionService;
     }
 
     @GetMapping
-    public ResponseEntity<Page<Transaction>> getAllTransactions(
+    public ResponseEntity<PageResponse<TransactionView>> getAllTransactions(
             @RequestParam(required = false) Boolean isIncome,
-            @RequestParam(required = false) LocalDateTime startDate,
-            @RequestParam(required = false) LocalDateTime endDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
             @RequestParam(required = false) Double minAmount,
             @RequestParam(required = false) Double maxAmount,
             @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "date") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDirection) {
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @AuthenticationPrincipal User user,
+            WebRequest webRequest) {
 
         TransactionFilter filter = new TransactionFilter(
                 isIncome,
@@ -45,41 +78,167 @@ public class TransactionController {
                 category
         );
 
-        Page<Transaction> transactions = transactionService.getAllTransactions(
+        String etag = dataVersionService.etag(user);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        PageResponse<TransactionView> transactions = PageResponse.of(transactionService.getAllTransactions(
                 filter,
                 page,
                 size,
                 sortBy,
-                sortDirection
+                sortDirection,
+                user
+        ));
+
+        return ResponseEntity.ok().cacheControl(DataVersionService.REVALIDATE).eTag(etag).body(transactions);
+    }
+
+    @GetMapping("/seek")
+    public ResponseEntity<CursorSlice<TransactionView>> getTransactionsAfter(
+            @RequestParam(required = false) Boolean isIncome,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "date") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @AuthenticationPrincipal User user,
+            WebRequest webRequest) {
+
+        TransactionFilter filter = new TransactionFilter(
+                isIncome,
+                startDate,
+                endDate,
+                minAmount,
+                maxAmount,
+                category
+        );
+
+        String etag = dataVersionService.etag(user);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(DataVersionService.REVALIDATE).eTag(etag).body(transactionService.getTransactionsAfter(
+                filter,
+                after,
+                size,
+                sortBy,
+                sortDirection,
+                user
+        ));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<TransactionSummary> getSummary(
+            @RequestParam(required = false) Boolean isIncome,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) String category,
+            @AuthenticationPrincipal User user,
+            WebRequest webRequest) {
+
+        TransactionFilter filter = new TransactionFilter(
+                isIncome,
+                startDate,
+                endDate,
+                minAmount,
+                maxAmount,
+                category
+        );
+
+        String etag = dataVersionService.etag(user);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().cacheControl(DataVersionService.REVALIDATE).eTag(etag).body(transactionSummaryService.getSummary(filter, user));
+    }
+
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam(required = false) Boolean isIncome,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "csv") String format,
+            @AuthenticationPrincipal User user,
+            HttpServletResponse response) throws IOException {
+
+        if (!format.equals("csv") && !format.equals("ndjson")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format must be csv or ndjson");
+        }
+        boolean ndjson = format.equals("ndjson");
+
+        TransactionFilter filter = new TransactionFilter(
+                isIncome,
+                startDate,
+                endDate,
+                minAmount,
+                maxAmount,
+                category
         );
 
-        return ResponseEntity.ok(transactions);
+        response.setContentType(ndjson ? "application/x-ndjson" : "text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + format + "\"");
+        transactionExportService.export(filter, ndjson, user, response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Transaction> getTransactionById(@PathVariable Long id) {
-        Optional<Transaction> transaction = transactionService.getTransactionById(id);
-        return transaction.map(ResponseEntity::ok)
+    public ResponseEntity<TransactionView> getTransactionById(@PathVariable Long id, @AuthenticationPrincipal User user, WebRequest webRequest) {
+        String etag = dataVersionService.etag(user);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        Optional<TransactionView> transaction = transactionService.getTransactionById(id, user);
+        return transaction.map(view -> ResponseEntity.ok().cacheControl(DataVersionService.REVALIDATE).eTag(etag).body(view))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<Transaction> createTransaction(@RequestBody TransactionDto transactionDto, @RequestHeader("Authorization") String authHeader) {
-        return ResponseEntity.ok(transactionService.createTransaction(transactionDto, authHeader));
+    public ResponseEntity<TransactionView> createTransaction(@RequestBody TransactionDto transactionDto, @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(TransactionView.from(transactionService.createTransaction(transactionDto, user)));
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportResult> importTransactions(HttpServletRequest request, @AuthenticationPrincipal User user) throws IOException {
+        return ResponseEntity.ok(transactionImportService.importTransactions(request.getInputStream(), request.getContentType(), user));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Transaction> updateTransaction(
+    public ResponseEntity<TransactionView> updateTransaction(
             @PathVariable Long id,
             @RequestBody TransactionDto transactionDto,
-            @RequestHeader("Authorization") String authHeader) {
-        Transaction updatedTransaction = transactionService.updateTransaction(id, transactionDto, authHeader);
-        return ResponseEntity.ok(updatedTransaction);
+            @AuthenticationPrincipal User user) {
+        Transaction updatedTransaction = transactionService.updateTransaction(id, transactionDto, user);
+        return ResponseEntity.ok(TransactionView.from(updatedTransaction));
+    }
+
+    // everything of the caller's that matches the filter and ids; at least one of them is required
+    @DeleteMapping
+    public ResponseEntity<BulkUpdateResult> deleteTransactions(@RequestBody BulkSelection selection, @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(transactionBulkService.delete(selection.filter(), selection.ids(), user));
+    }
+
+    @PatchMapping("/category")
+    public ResponseEntity<BulkUpdateResult> recategorizeTransactions(@RequestBody CategoryChange change, @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(transactionBulkService.recategorize(change.filter(), change.ids(), change.category(), user));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTransaction(@PathVariable Long id) {
-        if (transactionService.deleteTransaction(id)) {
+    public ResponseEntity<Void> deleteTransaction(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        if (transactionService.deleteTransaction(id, user)) {
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
@@ -2,12 +2,20 @@ package finance_tracker.rs.controller;
 
 import finance_tracker.rs.model.User;
 import finance_tracker.rs.model.dto.AuthResponse;
+import finance_tracker.rs.model.dto.BalancePoint;
 import finance_tracker.rs.model.dto.UserDto;
+import finance_tracker.rs.service.BalanceHistoryService;
 import finance_tracker.rs.service.UserService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/users")
@@ -15,9 +23,11 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final BalanceHistoryService balanceHistoryService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, BalanceHistoryService balanceHistoryService) {
         this.userService = userService;
+        this.balanceHistoryService = balanceHistoryService;
     }
 
     @GetMapping("/{username}")
@@ -27,6 +37,29 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    // ?date= for one day, or ?from=&to=&interval=day|month for a chart
+    @GetMapping("/{username}/balance-history")
+    public ResponseEntity<List<BalancePoint>> getBalanceHistory(
+            @PathVariable String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String interval,
+            @AuthenticationPrincipal User user) {
+        Long userId = userService.findVisibleUserId(username, user);
+        if (date != null) {
+            return ResponseEntity.ok(List.of(balanceHistoryService.balanceOn(userId, date)));
+        }
+        if (from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either date or from and to are required");
+        }
+        return switch (interval) {
+            case "day" -> ResponseEntity.ok(balanceHistoryService.daily(userId, from, to));
+            case "month" -> ResponseEntity.ok(balanceHistoryService.monthly(userId, from, to));
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "interval must be day or month");
+        };
+    }
+
     @PostMapping("/register")
     public ResponseEntity<User> registerUser(@RequestBody UserDto user) {
         User createdUser = userService.registerUser(user);
@@ -34,15 +67,15 @@ public class UserController {
     }
 
     @PutMapping
-    public ResponseEntity<User> changePassword(@RequestHeader("Authorization") String authorization, @RequestBody String oldPassword, @RequestBody String newPassword) {
-        User updatedUser = userService.changePassword(authorization, oldPassword, newPassword);
+    public ResponseEntity<User> changePassword(@AuthenticationPrincipal User user, @RequestBody String oldPassword, @RequestBody String newPassword) {
+        User updatedUser = userService.changePassword(user, oldPassword, newPassword);
         return ResponseEntity.ok(updatedUser);
     }
 
     @DeleteMapping("/{username}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    public ResponseEntity<Void> deleteUser(@PathVariable String username, @RequestHeader("Authorization") String authorization) {
-        userService.deleteUser(username, authorization);
+    public ResponseEntity<Void> deleteUser(@PathVariable String username, @AuthenticationPrincipal User user) {
+        userService.deleteUser(username, user);
         return ResponseEntity.ok().build();
     }
 
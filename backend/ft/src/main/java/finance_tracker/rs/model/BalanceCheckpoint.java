@@ -0,0 +1,25 @@
+package finance_tracker.rs.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Entity
+@Data
+@Table(name = "balance_checkpoint", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_checkpoint_user_month", columnNames = {"user_id", "month"})
+})
+public class BalanceCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    // first day of the month
+    @Column(nullable = false)
+    private LocalDate month;
+    // balance at the end of the month
+    @Column(nullable = false)
+    private double balance;
+}
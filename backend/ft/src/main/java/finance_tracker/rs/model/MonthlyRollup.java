@@ -0,0 +1,30 @@
+package finance_tracker.rs.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Entity
+@Data
+@Table(name = "monthly_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_monthly_rollup_user_category_month", columnNames = {"user_id", "category_id", "month"})
+})
+public class MonthlyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+    // first day of the month
+    @Column(nullable = false)
+    private LocalDate month;
+    @Column(nullable = false)
+    private double incomeSum;
+    @Column(nullable = false)
+    private double expenseSum;
+    @Column(nullable = false)
+    private long count;
+}
@@ -0,0 +1,22 @@
+package finance_tracker.rs.model;
+
+import java.time.LocalDateTime;
+
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    YEARLY;
+
+    // counted from the start every time, so a rule starting on the 31st lands on the last day of shorter
+    // months and goes back to the 31st after them
+    public LocalDateTime occurrence(LocalDateTime start, int every, long n) {
+        long steps = n * every;
+        return switch (this) {
+            case DAILY -> start.plusDays(steps);
+            case WEEKLY -> start.plusWeeks(steps);
+            case MONTHLY -> start.plusMonths(steps);
+            case YEARLY -> start.plusYears(steps);
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package finance_tracker.rs.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "recurring_transaction", indexes = {
+        @Index(name = "idx_recurring_transaction_user", columnList = "user_id, id")
+})
+public class RecurringTransaction {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+    @Column(nullable = false)
+    private boolean isIncome;
+    @Column(nullable = false)
+    private Double amount;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RecurrenceFrequency frequency;
+    @Column(name = "repeat_every", nullable = false)
+    private int every;
+    // the first occurrence
+    @Column(nullable = false)
+    private LocalDateTime startDate;
+    // last day an occurrence may fall on, null for no end
+    private LocalDate endDate;
+    // how many occurrences are transactions already
+    @Column(nullable = false)
+    private long occurrences;
+    // the next occurrence, null once there is none
+    private LocalDateTime nextRun;
+}
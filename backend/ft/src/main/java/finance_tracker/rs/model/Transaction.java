@@ -1,6 +1,7 @@
 package finance_tracker.rs.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -8,10 +9,16 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_user_date_id", columnList = "user_id, date, id"),
+        @Index(name = "idx_transactions_user_amount_id", columnList = "user_id, amount, id"),
+        @Index(name = "idx_transactions_user_category_date_id", columnList = "user_id, category_id, date, id")
+})
 public class Transaction {
+    // pooled sequence instead of IDENTITY so hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private boolean isIncome;
@@ -19,8 +26,11 @@ public class Transaction {
     private LocalDateTime date;
     @Column(nullable = false)
     private Double amount;
-    @Column(nullable = false)
-    private String category;
-    @ManyToOne
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", nullable = false, foreignKey = @ForeignKey(name = "fk_transactions_category"))
+    private Category category;
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 }
@@ -1,7 +1,9 @@
 package finance_tracker.rs.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +29,11 @@ public class User implements UserDetails {
     private boolean enabled;
     @Column(nullable = false)
     private Double balance = 0.0;
+    // bumped on every change to the user's transactions, drives the ETags of the transaction endpoints
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long dataVersion;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -0,0 +1,9 @@
+package finance_tracker.rs.model.dto;
+
+import java.time.LocalDate;
+
+// balance at the end of the day
+public record BalancePoint(
+        LocalDate date,
+        double balance
+) {}
@@ -0,0 +1,9 @@
+package finance_tracker.rs.model.dto;
+
+import java.util.List;
+
+// the caller's transactions matching the filter and the ids; in the body, where thousands of ids fit
+public record BulkSelection(
+        TransactionFilter filter,
+        List<Long> ids
+) {}
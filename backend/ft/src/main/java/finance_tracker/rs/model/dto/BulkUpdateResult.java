@@ -0,0 +1,6 @@
+package finance_tracker.rs.model.dto;
+
+public record BulkUpdateResult(
+        long affected,
+        double balance
+) {}
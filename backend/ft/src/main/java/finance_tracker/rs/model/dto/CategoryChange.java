@@ -0,0 +1,9 @@
+package finance_tracker.rs.model.dto;
+
+import java.util.List;
+
+public record CategoryChange(
+        TransactionFilter filter,
+        List<Long> ids,
+        String category
+) {}
@@ -0,0 +1,7 @@
+package finance_tracker.rs.model.dto;
+
+public record CategorySuggestion(
+        Long id,
+        String name,
+        long count
+) {}
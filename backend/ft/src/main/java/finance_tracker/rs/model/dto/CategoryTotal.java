@@ -0,0 +1,8 @@
+package finance_tracker.rs.model.dto;
+
+public record CategoryTotal(
+        String category,
+        double income,
+        double expense,
+        long count
+) {}
@@ -0,0 +1,7 @@
+package finance_tracker.rs.model.dto;
+
+// how many of a user's transactions are in a category
+public record CategoryUsage(
+        Long categoryId,
+        Long count
+) {}
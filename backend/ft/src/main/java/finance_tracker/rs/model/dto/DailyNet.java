@@ -0,0 +1,9 @@
+package finance_tracker.rs.model.dto;
+
+import java.time.LocalDate;
+
+// income minus expense of one day
+public record DailyNet(
+        LocalDate day,
+        double net
+) {}
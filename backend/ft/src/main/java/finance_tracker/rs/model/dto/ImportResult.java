@@ -0,0 +1,9 @@
+package finance_tracker.rs.model.dto;
+
+import java.util.List;
+
+public record ImportResult(
+        long imported,
+        long failed,
+        List<ImportRowError> errors
+) {}
@@ -0,0 +1,10 @@
+package finance_tracker.rs.model.dto;
+
+import java.time.YearMonth;
+
+public record MonthlyTotal(
+        YearMonth month,
+        double income,
+        double expense,
+        long count
+) {}
@@ -0,0 +1,18 @@
+package finance_tracker.rs.model.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+// the fields clients use from Spring's Page, without the pageable and sort objects
+public record PageResponse<T>(
+        List<T> content,
+        int number,
+        int size,
+        long totalElements,
+        int totalPages
+) {
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+}
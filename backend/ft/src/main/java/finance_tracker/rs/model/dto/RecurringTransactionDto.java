@@ -0,0 +1,17 @@
+package finance_tracker.rs.model.dto;
+
+import finance_tracker.rs.model.RecurrenceFrequency;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// every defaults to 1, endDate to no end
+public record RecurringTransactionDto(
+        boolean isIncome,
+        Double amount,
+        String category,
+        RecurrenceFrequency frequency,
+        Integer every,
+        LocalDateTime startDate,
+        LocalDate endDate
+) {}
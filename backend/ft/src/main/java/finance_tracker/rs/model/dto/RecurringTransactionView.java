@@ -0,0 +1,18 @@
+package finance_tracker.rs.model.dto;
+
+import finance_tracker.rs.model.RecurrenceFrequency;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record RecurringTransactionView(
+        Long id,
+        boolean income,
+        Double amount,
+        String category,
+        RecurrenceFrequency frequency,
+        int every,
+        LocalDateTime startDate,
+        LocalDate endDate,
+        LocalDateTime nextRun
+) {}
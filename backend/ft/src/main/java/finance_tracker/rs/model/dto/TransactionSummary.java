@@ -0,0 +1,13 @@
+package finance_tracker.rs.model.dto;
+
+import java.util.List;
+
+public record TransactionSummary(
+        double totalIncome,
+        double totalExpense,
+        double balance,
+        double savingsRate,
+        long count,
+        List<CategoryTotal> categories,
+        List<MonthlyTotal> months
+) {}
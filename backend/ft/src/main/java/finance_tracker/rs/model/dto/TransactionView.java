@@ -0,0 +1,23 @@
+package finance_tracker.rs.model.dto;
+
+import finance_tracker.rs.model.Transaction;
+
+import java.time.LocalDateTime;
+
+// what the API returns for a transaction; selected column by column, so the owner is never loaded
+public record TransactionView(
+        Long id,
+        boolean income,
+        LocalDateTime date,
+        Double amount,
+        String category
+) {
+    public static TransactionView from(Transaction transaction) {
+        return new TransactionView(
+                transaction.getId(),
+                transaction.isIncome(),
+                transaction.getDate(),
+                transaction.getAmount(),
+                transaction.getCategory().getName());
+    }
+}
@@ -0,0 +1,44 @@
+package finance_tracker.rs.repository;
+
+import finance_tracker.rs.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+    List<BalanceCheckpoint> findByUserIdAndMonthBetweenOrderByMonth(Long userId, LocalDate from, LocalDate to);
+
+    // null when the user has nothing before that month
+    @Query(value = "SELECT balance FROM balance_checkpoint WHERE user_id = :userId AND month < :month " +
+            "ORDER BY month DESC LIMIT 1", nativeQuery = true)
+    Double findBalanceBefore(Long userId, LocalDate month);
+
+    // a change in one month moves that month's checkpoint and every later one; a month seen for the first
+    // time starts from the checkpoint before it. Callers hold the users row, so a user's changes run one at a time.
+    @Modifying
+    @Query(value = "WITH later AS (" +
+            "UPDATE balance_checkpoint SET balance = balance + :delta WHERE user_id = :userId AND month > :month) " +
+            "INSERT INTO balance_checkpoint (user_id, month, balance) VALUES (:userId, :month, :delta + COALESCE(" +
+            "(SELECT b.balance FROM balance_checkpoint b WHERE b.user_id = :userId AND b.month < :month " +
+            "ORDER BY b.month DESC LIMIT 1), 0)) " +
+            "ON CONFLICT (user_id, month) DO UPDATE SET balance = balance_checkpoint.balance + :delta", nativeQuery = true)
+    int addToMonth(Long userId, LocalDate month, double delta);
+
+    @Modifying
+    @Query(value = "LOCK TABLE balance_checkpoint IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM balance_checkpoint", nativeQuery = true)
+    int deleteAllRows();
+
+    // running sum of the rollup, which has to be rebuilt first
+    @Modifying
+    @Query(value = "INSERT INTO balance_checkpoint (user_id, month, balance) " +
+            "SELECT user_id, month, SUM(SUM(income_sum - expense_sum)) OVER (PARTITION BY user_id ORDER BY month) " +
+            "FROM monthly_rollup GROUP BY user_id, month", nativeQuery = true)
+    int insertFromRollup();
+}
@@ -1,9 +1,19 @@
 package finance_tracker.rs.repository;
 
 import finance_tracker.rs.model.Category;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
-import java.util.List;
+import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    Optional<Category> findByName(String name);
+
+    // a concurrent insert of the same name waits for the other transaction and then does nothing
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO category (name) VALUES (:name) ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(String name);
 }
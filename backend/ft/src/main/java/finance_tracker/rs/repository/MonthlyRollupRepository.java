@@ -0,0 +1,45 @@
+package finance_tracker.rs.repository;
+
+import finance_tracker.rs.model.MonthlyRollup;
+import finance_tracker.rs.model.dto.CategoryUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface MonthlyRollupRepository extends JpaRepository<MonthlyRollup, Long> {
+    List<MonthlyRollup> findByUserIdOrderByMonth(Long userId);
+
+    @Query("SELECT new finance_tracker.rs.model.dto.CategoryUsage(r.categoryId, SUM(r.count)) FROM MonthlyRollup r " +
+            "WHERE r.userId = :userId GROUP BY r.categoryId HAVING SUM(r.count) > 0")
+    List<CategoryUsage> findUsageByUserId(Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_rollup (user_id, category_id, month, income_sum, expense_sum, count) " +
+            "VALUES (:userId, :categoryId, :month, :income, :expense, :count) " +
+            "ON CONFLICT (user_id, category_id, month) DO UPDATE SET " +
+            "income_sum = monthly_rollup.income_sum + EXCLUDED.income_sum, " +
+            "expense_sum = monthly_rollup.expense_sum + EXCLUDED.expense_sum, " +
+            "count = monthly_rollup.count + EXCLUDED.count", nativeQuery = true)
+    int addToMonth(Long userId, Long categoryId, LocalDate month, double income, double expense, long count);
+
+    // writers block on their upsert until the rebuild commits, then apply on top of it
+    @Modifying
+    @Query(value = "LOCK TABLE monthly_rollup IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_rollup (user_id, category_id, month, income_sum, expense_sum, count) " +
+            "SELECT user_id, category_id, CAST(date_trunc('month', date) AS date), " +
+            "SUM(CASE WHEN is_income THEN amount ELSE 0 END), " +
+            "SUM(CASE WHEN is_income THEN 0 ELSE amount END), " +
+            "COUNT(*) " +
+            "FROM transactions GROUP BY 1, 2, 3", nativeQuery = true)
+    int insertFromTransactions();
+}
@@ -0,0 +1,18 @@
+package finance_tracker.rs.repository;
+
+import finance_tracker.rs.model.RecurringTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface RecurringTransactionRepository extends JpaRepository<RecurringTransaction, Long> {
+    List<RecurringTransaction> findByUserIdOrderById(Long userId);
+
+    long countByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RecurringTransaction r WHERE r.id = :id AND r.userId = :userId")
+    int deleteByIdAndUserId(Long id, Long userId);
+}
@@ -2,6 +2,7 @@ package finance_tracker.rs.repository;
 
 import finance_tracker.rs.model.Transaction;
 import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.DailyNet;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -18,7 +20,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             "(:endDate IS NULL OR t.date <= :endDate) AND " +
             "(:minAmount IS NULL OR t.amount >= :minAmount) AND " +
             "(:maxAmount IS NULL OR t.amount <= :maxAmount) AND " +
-            "(:category IS NULL OR t.category LIKE %:category%)")
+            "(:category IS NULL OR t.category.name LIKE %:category%)")
     Page<Transaction> findByFilters(
             @Param("isIncome") Boolean isIncome,
             @Param("startDate") LocalDateTime startDate,
@@ -29,4 +31,10 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             Pageable pageable);
     Optional<Transaction> findByIdAndUser(Long transactionId, User user);
 
+    @Query("SELECT new finance_tracker.rs.model.dto.DailyNet(CAST(t.date AS LocalDate), " +
+            "SUM(CASE WHEN t.isIncome = true THEN t.amount ELSE -t.amount END)) FROM Transaction t " +
+            "WHERE t.user.id = :userId AND t.date >= :from AND t.date < :to " +
+            "GROUP BY CAST(t.date AS LocalDate) ORDER BY CAST(t.date AS LocalDate)")
+    List<DailyNet> findDailyNet(Long userId, LocalDateTime from, LocalDateTime to);
+
 }
@@ -1,16 +1,18 @@
 package finance_tracker.rs.repository;
 
 import finance_tracker.rs.model.User;
-import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // read-only so that outside a service transaction it can go to a replica; authentication pins it to the primary
+    @Transactional(readOnly = true)
     Optional<User> findByUsername(String username);
 
     @Transactional
@@ -23,5 +25,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
     int updatePasswordByUsername(String username, String password);
 
+    // atomic in the database, so concurrent transactions for the same user never lose an update;
+    // every balance change is a data change, so it bumps the data version in the same statement
+    @Transactional
+    @Query(value = "UPDATE users SET balance = balance + :delta, data_version = data_version + 1 WHERE id = :id RETURNING balance", nativeQuery = true)
+    Double addToBalance(Long id, double delta);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 WHERE u.id = :id")
+    int bumpDataVersion(Long id);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT u.dataVersion FROM User u WHERE u.id = :id")
+    Long findDataVersionById(Long id);
+
+    // serializes checks of a per-user limit with the insert they guard; the same lock a balance update takes
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR NO KEY UPDATE", nativeQuery = true)
+    Long lockById(Long id);
+
     boolean existsByUsername(String username);
 }
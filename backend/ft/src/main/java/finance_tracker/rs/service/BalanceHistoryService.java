@@ -0,0 +1,110 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.BalanceCheckpoint;
+import finance_tracker.rs.model.dto.BalancePoint;
+import finance_tracker.rs.model.dto.DailyNet;
+import finance_tracker.rs.repository.BalanceCheckpointRepository;
+import finance_tracker.rs.repository.TransactionRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Balance at any past date without summing the whole history: the checkpoint at the end of the month
+// before, plus the transactions from the start of that date's month, which is at most one partition.
+@Service
+@Transactional(readOnly = true)
+public class BalanceHistoryService {
+    static final int MAX_DAYS = 366;
+    static final int MAX_MONTHS = 120;
+
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final TransactionRepository transactionRepository;
+
+    public BalanceHistoryService(BalanceCheckpointRepository balanceCheckpointRepository, TransactionRepository transactionRepository) {
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    public BalancePoint balanceOn(Long userId, LocalDate date) {
+        return daily(userId, date, date).get(0);
+    }
+
+    // one point per day from from to to, both included
+    public List<BalancePoint> daily(Long userId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        if (from.plusDays(MAX_DAYS - 1).isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Daily history covers at most " + MAX_DAYS + " days");
+        }
+
+        LocalDate monthStart = from.withDayOfMonth(1);
+        double balance = balanceBefore(userId, monthStart);
+        Map<LocalDate, Double> nets = dailyNets(userId, monthStart, to);
+
+        List<BalancePoint> points = new ArrayList<>();
+        for (LocalDate day = monthStart; !day.isAfter(to); day = day.plusDays(1)) {
+            balance += nets.getOrDefault(day, 0.0);
+            if (!day.isBefore(from)) {
+                points.add(new BalancePoint(day, balance));
+            }
+        }
+        return points;
+    }
+
+    // one point per month end from from's month to to's month, the last one on to itself
+    public List<BalancePoint> monthly(Long userId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        if (first.plusMonths(MAX_MONTHS - 1).isBefore(last)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Monthly history covers at most " + MAX_MONTHS + " months");
+        }
+
+        Map<YearMonth, Double> checkpoints = new HashMap<>();
+        for (BalanceCheckpoint checkpoint : balanceCheckpointRepository.findByUserIdAndMonthBetweenOrderByMonth(
+                userId, first.atDay(1), last.atDay(1))) {
+            checkpoints.put(YearMonth.from(checkpoint.getMonth()), checkpoint.getBalance());
+        }
+
+        // months without a checkpoint had no transactions, so they end where the month before did
+        double balance = balanceBefore(userId, first.atDay(1));
+        List<BalancePoint> points = new ArrayList<>();
+        for (YearMonth month = first; month.isBefore(last); month = month.plusMonths(1)) {
+            balance = checkpoints.getOrDefault(month, balance);
+            points.add(new BalancePoint(month.atEndOfMonth(), balance));
+        }
+        if (to.equals(last.atEndOfMonth())) {
+            points.add(new BalancePoint(to, checkpoints.getOrDefault(last, balance)));
+        } else {
+            double partial = dailyNets(userId, last.atDay(1), to).values().stream().mapToDouble(Double::doubleValue).sum();
+            points.add(new BalancePoint(to, balance + partial));
+        }
+        return points;
+    }
+
+    private double balanceBefore(Long userId, LocalDate monthStart) {
+        Double balance = balanceCheckpointRepository.findBalanceBefore(userId, monthStart);
+        return balance == null ? 0.0 : balance;
+    }
+
+    private Map<LocalDate, Double> dailyNets(Long userId, LocalDate from, LocalDate to) {
+        Map<LocalDate, Double> nets = new HashMap<>();
+        for (DailyNet net : transactionRepository.findDailyNet(userId, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            nets.put(net.day(), net.net());
+        }
+        return nets;
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package finance_tracker.rs.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// one-off check: start the app with --balances.reconcile=report, or =repair to fix what it finds
+@Component
+@ConditionalOnProperty(name = "balances.reconcile")
+public class BalanceReconciliationRunner implements ApplicationRunner {
+    private final BalanceReconciliationService balanceReconciliationService;
+
+    @Value("${balances.reconcile}")
+    private String mode;
+
+    public BalanceReconciliationRunner(BalanceReconciliationService balanceReconciliationService) {
+        this.balanceReconciliationService = balanceReconciliationService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        balanceReconciliationService.reconcile(mode.equals("repair"));
+    }
+}
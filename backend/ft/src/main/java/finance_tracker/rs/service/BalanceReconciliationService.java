@@ -0,0 +1,180 @@
+package finance_tracker.rs.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compares users.balance with the sum of the user's transactions, a chunk of user ids at a time on a few
+// threads, and logs or repairs the users that drifted. Each chunk is one statement in its own transaction:
+// checking takes no locks, and a repair only locks the drifted rows of one chunk for a moment.
+//
+// A repair adds the drift instead of writing the sum, so a write that commits while the chunk runs is kept:
+// it changes the balance and the transactions together, so the difference the chunk saw is still the error.
+//
+// Months archived by TransactionPartitionMaintenance are no longer in transactions; their net per user is in
+// archived_balance (see V5__archived_balances.sql) and counts towards the sum.
+@Service
+public class BalanceReconciliationService implements InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(BalanceReconciliationService.class);
+    private static final int MAX_LOGGED = 100;
+
+    private static final String SUM = "COALESCE(SUM(CASE WHEN t.is_income THEN t.amount ELSE -t.amount END), 0) + COALESCE(a.net, 0)";
+
+    private static final String DRIFT = "SELECT u.id, u.username, u.balance, " + SUM + " - u.balance AS drift " +
+            "FROM users u LEFT JOIN archived_balance a ON a.user_id = u.id " +
+            "LEFT JOIN transactions t ON t.user_id = u.id AND t.user_id BETWEEN ? AND ? " +
+            "WHERE u.id BETWEEN ? AND ? GROUP BY u.id, a.net " +
+            "HAVING ABS(" + SUM + " - u.balance) > ?";
+
+    private static final String REPAIR = "WITH drifted AS (" + DRIFT + ") " +
+            "UPDATE users u SET balance = u.balance + d.drift, data_version = u.data_version + 1 " +
+            "FROM drifted d WHERE u.id = d.id RETURNING u.id, d.username, d.balance, d.drift";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${balances.reconciliation.chunk-size}")
+    private int chunkSize;
+
+    @Value("${balances.reconciliation.threads}")
+    private int threads;
+
+    @Value("${balances.reconciliation.repair}")
+    private boolean repair;
+
+    // amounts are doubles, so sums differ in the last bits
+    @Value("${balances.reconciliation.tolerance}")
+    private double tolerance;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong chunksTotal = new AtomicLong();
+    private final AtomicLong chunksDone = new AtomicLong();
+    private Counter drifted;
+    private Counter repaired;
+    private Timer duration;
+
+    public BalanceReconciliationService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Gauge.builder("balances.reconciliation.chunks.total", chunksTotal, AtomicLong::get)
+                .description("Chunks of user ids in the current or last run")
+                .register(meterRegistry);
+        Gauge.builder("balances.reconciliation.chunks.done", chunksDone, AtomicLong::get)
+                .register(meterRegistry);
+        drifted = Counter.builder("balances.reconciliation.drifted").register(meterRegistry);
+        repaired = Counter.builder("balances.reconciliation.repaired").register(meterRegistry);
+        duration = Timer.builder("balances.reconciliation.duration").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${balances.reconciliation.cron}")
+    public void scheduled() {
+        reconcile(repair);
+    }
+
+    // the number of drifted users, or -1 if a run is already going
+    public long reconcile(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Balance reconciliation is already running");
+            return -1;
+        }
+        try {
+            return duration.record(() -> run(repair));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long run(boolean repair) {
+        Map<String, Object> range = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM users");
+        if (range.get("lo") == null) {
+            return 0;
+        }
+        long lo = ((Number) range.get("lo")).longValue();
+        long hi = ((Number) range.get("hi")).longValue();
+        chunksTotal.set((hi - lo) / chunkSize + 1);
+        chunksDone.set(0);
+
+        AtomicLong found = new AtomicLong();
+        AtomicInteger logged = new AtomicInteger();
+        // a full queue makes the submitting thread run the chunk itself, so chunks are never all queued at once
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new CustomizableThreadFactory("balance-reconciliation-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            for (long start = lo; start <= hi; start += chunkSize) {
+                long from = start;
+                long to = Math.min(start + chunkSize - 1, hi);
+                pool.execute(() -> {
+                    try {
+                        List<Drift> drifts = reconcileChunk(from, to, repair);
+                        found.addAndGet(drifts.size());
+                        drifts.forEach(d -> {
+                            if (logged.incrementAndGet() <= MAX_LOGGED) {
+                                log.warn("Balance of {} (id {}) is {} but its transactions sum to {}{}", d.username(), d.userId(),
+                                        d.balance(), d.balance() + d.drift(), repair ? ", repaired" : "");
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        log.error("Reconciling users {} to {} failed", from, to, e);
+                    } finally {
+                        chunksDone.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            shutdown(pool);
+        }
+
+        log.info("Balance reconciliation {} {} drifted users in {} chunks", repair ? "repaired" : "found", found.get(), chunksTotal.get());
+        return found.get();
+    }
+
+    // users with ids from from to to whose balance is off by more than the tolerance
+    List<Drift> reconcileChunk(long from, long to, boolean repair) {
+        List<Drift> drifts = jdbcTemplate.query(repair ? REPAIR : DRIFT,
+                (rs, i) -> new Drift(rs.getLong("id"), rs.getString("username"), rs.getDouble("balance"), rs.getDouble("drift")),
+                from, to, from, to, tolerance);
+        drifted.increment(drifts.size());
+        if (repair) {
+            repaired.increment(drifts.size());
+        }
+        return drifts;
+    }
+
+    private static void shutdown(ExecutorService pool) {
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for balance reconciliation chunks to finish");
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record Drift(Long userId, String username, double balance, double drift) {}
+}
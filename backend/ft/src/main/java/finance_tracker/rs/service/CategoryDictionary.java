@@ -0,0 +1,221 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.configuration.ReadYourWrites;
+import finance_tracker.rs.model.Category;
+import finance_tracker.rs.repository.CategoryRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// All categories in memory, so reads turn names into ids and back without touching the database.
+// Readers see an immutable snapshot; a new category drops it once the inserting transaction commits.
+// Until then the inserting transaction reads from a snapshot of its own, which sees its uncommitted
+// categories and is never shared, so a rollback cannot leave a category behind in the shared one.
+@Service
+public class CategoryDictionary {
+    private static final int GRAM = 3;
+    static final String CONTROL_CHARACTERS = "Category must not contain line breaks or other control characters";
+
+    private final CategoryRepository categoryRepository;
+    private final ReadYourWrites readYourWrites;
+
+    // not synchronized: a virtual thread waiting on JDBC inside a monitor pins its carrier thread
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public CategoryDictionary(CategoryRepository categoryRepository, ReadYourWrites readYourWrites) {
+        this.categoryRepository = categoryRepository;
+        this.readYourWrites = readYourWrites;
+    }
+
+    // a name is one line of text, since a CSV import reads a row per line
+    static boolean hasControlCharacters(String name) {
+        return name.chars().anyMatch(Character::isISOControl);
+    }
+
+    public List<Category> all() {
+        return snapshot().sorted();
+    }
+
+    // the category with this name, created if it does not exist yet
+    public Category resolve(String name) {
+        if (name == null || name.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category is required");
+        }
+        if (hasControlCharacters(name)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, CONTROL_CHARACTERS);
+        }
+        Category category = snapshot().byName().get(name);
+        if (category != null) {
+            return category;
+        }
+
+        // joins the caller's transaction, so the new row commits or rolls back with the transaction using it
+        categoryRepository.insertIfAbsent(name);
+        category = categoryRepository.findByName(name)
+                .orElseThrow(() -> new IllegalStateException("Category " + name + " was not inserted"));
+        invalidate();
+        return category;
+    }
+
+    public String name(Long id) {
+        Category category = snapshot().byId().get(id);
+        if (category == null) {
+            // written by someone else, e.g. the load-test seeder
+            drop();
+            category = snapshot().byId().get(id);
+        }
+        return category == null ? null : category.getName();
+    }
+
+    // ids of the categories whose name contains the fragment, which keeps the old LIKE '%fragment%' filter
+    // while the query itself compares integers
+    public Set<Long> idsContaining(String fragment) {
+        return candidates(fragment.toLowerCase(Locale.ROOT)).stream()
+                .filter(c -> c.getName().contains(fragment))
+                .map(Category::getId)
+                .collect(Collectors.toSet());
+    }
+
+    // a superset of the categories whose lowercase name contains the lowercase fragment: the shortest
+    // trigram posting list, or every category for fragments too short to have a trigram
+    List<Category> candidates(String lowercase) {
+        Snapshot current = snapshot();
+        if (lowercase.length() < GRAM) {
+            return current.sorted();
+        }
+        List<Category> shortest = null;
+        for (int i = 0; i + GRAM <= lowercase.length(); i++) {
+            List<Category> postings = current.byTrigram().get(lowercase.substring(i, i + GRAM));
+            if (postings == null) {
+                return List.of();
+            }
+            if (shortest == null || postings.size() < shortest.size()) {
+                shortest = postings;
+            }
+        }
+        return shortest;
+    }
+
+    // outside a transaction the insert has already committed
+    private void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            snapshot = null;
+            return;
+        }
+        PendingInserts pending = pendingInserts();
+        if (pending == null) {
+            pending = new PendingInserts();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.snapshot = null;
+    }
+
+    private void drop() {
+        PendingInserts pending = pendingInserts();
+        if (pending != null) {
+            pending.snapshot = null;
+        } else {
+            snapshot = null;
+        }
+    }
+
+    private PendingInserts pendingInserts() {
+        return (PendingInserts) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private Snapshot snapshot() {
+        PendingInserts pending = pendingInserts();
+        if (pending != null) {
+            if (pending.snapshot == null) {
+                pending.snapshot = loadSnapshot();
+            }
+            return pending.snapshot;
+        }
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = load();
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        loadLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            current = loadSnapshot();
+            snapshot = current;
+            return current;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private Snapshot loadSnapshot() {
+        Map<Long, Category> byId = new HashMap<>();
+        Map<String, Category> byName = new HashMap<>();
+        Map<String, List<Category>> byTrigram = new HashMap<>();
+        // a replica may not have the category whose insert just dropped the snapshot
+        for (Category category : readYourWrites.onPrimary(categoryRepository::findAll)) {
+            byId.put(category.getId(), category);
+            byName.put(category.getName(), category);
+            String lowercase = category.getName().toLowerCase(Locale.ROOT);
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM <= lowercase.length(); i++) {
+                grams.add(lowercase.substring(i, i + GRAM));
+            }
+            grams.forEach(gram -> byTrigram.computeIfAbsent(gram, g -> new ArrayList<>()).add(category));
+        }
+        List<Category> sorted = byId.values().stream()
+                .sorted(Comparator.comparing(Category::getName))
+                .toList();
+        byTrigram.replaceAll((gram, postings) -> List.copyOf(postings));
+        return new Snapshot(Map.copyOf(byId), Map.copyOf(byName), Map.copyOf(byTrigram), sorted);
+    }
+
+    // the categories this transaction inserted are someone else's to see only once it commits
+    private final class PendingInserts implements TransactionSynchronization {
+        private Snapshot snapshot;
+
+        // an inner REQUIRES_NEW transaction can't see the inserts, so it must not see this snapshot either
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(CategoryDictionary.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CategoryDictionary.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            CategoryDictionary.this.snapshot = null;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CategoryDictionary.this);
+        }
+    }
+
+    private record Snapshot(Map<Long, Category> byId, Map<String, Category> byName,
+                            Map<String, List<Category>> byTrigram, List<Category> sorted) {}
+}
@@ -0,0 +1,120 @@
+package finance_tracker.rs.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import finance_tracker.rs.model.Category;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.CategorySuggestion;
+import finance_tracker.rs.model.dto.CategoryUsage;
+import finance_tracker.rs.repository.MonthlyRollupRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Category suggestions for the filter box: the categories a user has transactions in, taken from the
+// monthly rollup and cached per user, matched against the trigram index of the category dictionary.
+// Every rollup write drops the writer's entry once its transaction commits.
+@Service
+public class CategorySearchService {
+    private static final Comparator<Ranked> RANKING = Comparator.comparingInt(Ranked::rank)
+            .thenComparing(Comparator.comparingLong(Ranked::count).reversed())
+            .thenComparing(Ranked::name);
+
+    private final MonthlyRollupRepository monthlyRollupRepository;
+    private final CategoryDictionary categoryDictionary;
+
+    @Value("${categories.search.cache-size}")
+    private long cacheSize;
+
+    @Value("${categories.search.cache-idle-minutes}")
+    private long cacheIdleMinutes;
+
+    // category id -> number of the user's transactions in it
+    private Cache<Long, Map<Long, Long>> usageByUser;
+
+    public CategorySearchService(MonthlyRollupRepository monthlyRollupRepository, CategoryDictionary categoryDictionary) {
+        this.monthlyRollupRepository = monthlyRollupRepository;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    @PostConstruct
+    public void init() {
+        usageByUser = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterAccess(Duration.ofMinutes(cacheIdleMinutes))
+                .build();
+    }
+
+    // exact match first, then prefix, then the start of a later word, then anywhere; more used first within each
+    public List<CategorySuggestion> search(String query, int limit, User user) {
+        Map<Long, Long> usage = usageByUser.get(user.getId(), this::loadUsage);
+        String lowercase = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+
+        // a user has few categories, the dictionary may have many; walk whichever side is smaller
+        List<Category> candidates = categoryDictionary.candidates(lowercase);
+        Collection<Long> ids = candidates.size() < usage.size()
+                ? candidates.stream().map(Category::getId).filter(usage::containsKey).toList()
+                : usage.keySet();
+
+        return ids.stream()
+                .map(id -> {
+                    // null for a category the cached usage still has but the dictionary doesn't
+                    String name = categoryDictionary.name(id);
+                    int rank = name == null ? -1 : rank(name.toLowerCase(Locale.ROOT), lowercase);
+                    return new Ranked(id, name, rank, usage.get(id));
+                })
+                .filter(r -> r.rank() >= 0)
+                .sorted(RANKING)
+                .limit(limit)
+                .map(r -> new CategorySuggestion(r.id(), r.name(), r.count()))
+                .toList();
+    }
+
+    public void evictAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            usageByUser.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                usageByUser.invalidate(userId);
+            }
+        });
+    }
+
+    public void evictAll() {
+        usageByUser.invalidateAll();
+    }
+
+    private Map<Long, Long> loadUsage(Long userId) {
+        return monthlyRollupRepository.findUsageByUserId(userId).stream()
+                .collect(Collectors.toUnmodifiableMap(CategoryUsage::categoryId, CategoryUsage::count));
+    }
+
+    private static int rank(String name, String query) {
+        if (query.isEmpty() || name.equals(query)) {
+            return 0;
+        }
+        if (name.startsWith(query)) {
+            return 1;
+        }
+        int at = name.indexOf(query);
+        if (at < 0) {
+            return -1;
+        }
+        return Character.isLetterOrDigit(name.charAt(at - 1)) ? 3 : 2;
+    }
+
+    private record Ranked(Long id, String name, int rank, long count) {}
+}
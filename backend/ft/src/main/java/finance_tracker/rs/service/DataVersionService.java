@@ -0,0 +1,24 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.repository.UserRepository;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+
+@Service
+public class DataVersionService {
+    // browsers keep the response but ask again every time, which is what makes If-None-Match show up
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final UserRepository userRepository;
+
+    public DataVersionService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // the same url returns the same body until one of the user's transactions changes;
+    // the user id keeps a shared browser cache from matching another user's response
+    public String etag(User user) {
+        return "\"" + user.getId() + "-" + userRepository.findDataVersionById(user.getId()) + "\"";
+    }
+}
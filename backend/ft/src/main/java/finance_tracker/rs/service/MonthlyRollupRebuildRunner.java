@@ -0,0 +1,27 @@
+package finance_tracker.rs.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// backfill: start the app with --rollup.rebuild=true
+@Component
+@ConditionalOnProperty(name = "rollup.rebuild", havingValue = "true")
+public class MonthlyRollupRebuildRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(MonthlyRollupRebuildRunner.class);
+
+    private final MonthlyRollupService monthlyRollupService;
+
+    public MonthlyRollupRebuildRunner(MonthlyRollupService monthlyRollupService) {
+        this.monthlyRollupService = monthlyRollupService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int rows = monthlyRollupService.rebuild();
+        log.info("Rebuilt monthly_rollup: {} rows", rows);
+    }
+}
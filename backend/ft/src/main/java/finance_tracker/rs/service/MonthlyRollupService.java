@@ -0,0 +1,134 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.Transaction;
+import finance_tracker.rs.repository.BalanceCheckpointRepository;
+import finance_tracker.rs.repository.MonthlyRollupRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+@Transactional
+public class MonthlyRollupService {
+    // MonthlyRollupRepository.addToMonth for many rows at once, one array per column
+    private static final String ADD_TO_MONTHS = "INSERT INTO monthly_rollup (user_id, category_id, month, income_sum, expense_sum, count) " +
+            "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::date[], ?::float8[], ?::float8[], ?::bigint[]) ORDER BY 1, 2, 3 " +
+            "ON CONFLICT (user_id, category_id, month) DO UPDATE SET " +
+            "income_sum = monthly_rollup.income_sum + EXCLUDED.income_sum, " +
+            "expense_sum = monthly_rollup.expense_sum + EXCLUDED.expense_sum, " +
+            "count = monthly_rollup.count + EXCLUDED.count";
+
+    // BalanceCheckpointRepository.addToMonth with positional parameters, for a JDBC batch
+    private static final String ADD_TO_CHECKPOINT = "WITH later AS (" +
+            "UPDATE balance_checkpoint SET balance = balance + ? WHERE user_id = ? AND month > ?) " +
+            "INSERT INTO balance_checkpoint (user_id, month, balance) VALUES (?, ?, ? + COALESCE(" +
+            "(SELECT b.balance FROM balance_checkpoint b WHERE b.user_id = ? AND b.month < ? " +
+            "ORDER BY b.month DESC LIMIT 1), 0)) " +
+            "ON CONFLICT (user_id, month) DO UPDATE SET balance = balance_checkpoint.balance + ?";
+
+    private final MonthlyRollupRepository monthlyRollupRepository;
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final CategorySearchService categorySearchService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public MonthlyRollupService(MonthlyRollupRepository monthlyRollupRepository, BalanceCheckpointRepository balanceCheckpointRepository, CategorySearchService categorySearchService, JdbcTemplate jdbcTemplate) {
+        this.monthlyRollupRepository = monthlyRollupRepository;
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.categorySearchService = categorySearchService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(Transaction transaction) {
+        apply(transaction.getUser().getId(), transaction.getCategory().getId(), transaction.getDate().toLocalDate(),
+                transaction.isIncome(), transaction.getAmount(), 1);
+    }
+
+    public void apply(Long userId, Long categoryId, LocalDate date, boolean isIncome, double amount, int sign) {
+        addMonth(userId, categoryId, date,
+                isIncome ? sign * amount : 0.0,
+                isIncome ? 0.0 : sign * amount,
+                sign);
+    }
+
+    // every rollup change moves the balance checkpoints by the same net amount
+    public void addMonth(Long userId, Long categoryId, LocalDate month, double income, double expense, long count) {
+        monthlyRollupRepository.addToMonth(userId, categoryId, month.withDayOfMonth(1), income, expense, count);
+        balanceCheckpointRepository.addToMonth(userId, month.withDayOfMonth(1), income - expense);
+        // the user's categories are read from this table
+        categorySearchService.evictAfterCommit(userId);
+    }
+
+    // addMonth for many users in two round trips: one statement for the rollup rows and one batch for the
+    // checkpoints. At most one delta per (user, category, month), and the callers must already hold the
+    // users rows, as for addMonth.
+    public void addMonths(List<MonthDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<MonthDelta> sorted = new ArrayList<>(deltas);
+        sorted.sort(Comparator.comparing(MonthDelta::userId).thenComparing(MonthDelta::categoryId).thenComparing(MonthDelta::month));
+
+        int n = sorted.size();
+        Long[] userIds = new Long[n];
+        Long[] categoryIds = new Long[n];
+        String[] months = new String[n];
+        Double[] incomes = new Double[n];
+        Double[] expenses = new Double[n];
+        Long[] counts = new Long[n];
+        Map<CheckpointKey, Double> checkpoints = new TreeMap<>(
+                Comparator.comparing(CheckpointKey::userId).thenComparing(CheckpointKey::month));
+        Set<Long> users = new LinkedHashSet<>();
+        for (int i = 0; i < n; i++) {
+            MonthDelta delta = sorted.get(i);
+            LocalDate month = delta.month().withDayOfMonth(1);
+            userIds[i] = delta.userId();
+            categoryIds[i] = delta.categoryId();
+            months[i] = month.toString();
+            incomes[i] = delta.income();
+            expenses[i] = delta.expense();
+            counts[i] = delta.count();
+            checkpoints.merge(new CheckpointKey(delta.userId(), month), delta.income() - delta.expense(), Double::sum);
+            users.add(delta.userId());
+        }
+        jdbcTemplate.update(ADD_TO_MONTHS, userIds, categoryIds, months, incomes, expenses, counts);
+
+        List<Object[]> batch = new ArrayList<>(checkpoints.size());
+        checkpoints.forEach((key, net) -> batch.add(new Object[]{
+                net, key.userId(), key.month(), key.userId(), key.month(), net, key.userId(), key.month(), net}));
+        jdbcTemplate.batchUpdate(ADD_TO_CHECKPOINT, batch);
+
+        users.forEach(categorySearchService::evictAfterCommit);
+    }
+
+    // the month's sums change category; the balance and so the checkpoints stay as they are
+    public void moveCategory(Long userId, Long fromCategoryId, Long toCategoryId, LocalDate month, double income, double expense, long count) {
+        monthlyRollupRepository.addToMonth(userId, fromCategoryId, month.withDayOfMonth(1), -income, -expense, -count);
+        monthlyRollupRepository.addToMonth(userId, toCategoryId, month.withDayOfMonth(1), income, expense, count);
+        categorySearchService.evictAfterCommit(userId);
+    }
+
+    public int rebuild() {
+        monthlyRollupRepository.lockForRebuild();
+        balanceCheckpointRepository.lockForRebuild();
+        monthlyRollupRepository.deleteAllRows();
+        int rows = monthlyRollupRepository.insertFromTransactions();
+        balanceCheckpointRepository.deleteAllRows();
+        balanceCheckpointRepository.insertFromRollup();
+        categorySearchService.evictAll();
+        return rows;
+    }
+
+    // rows of one (user, category, month); the day of month is ignored
+    public record MonthDelta(Long userId, Long categoryId, LocalDate month, double income, double expense, long count) {}
+
+    private record CheckpointKey(Long userId, LocalDate month) {}
+}
@@ -0,0 +1,272 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.RecurrenceFrequency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Turns due occurrences of recurring transactions into transactions, a chunk of rules per database transaction.
+// A chunk is claimed with FOR UPDATE SKIP LOCKED, so a few workers here (and on other instances) split the due
+// rules between them without waiting on each other, and a chunk costs the same handful of statements whether
+// it covers one user or a thousand: one insert for all its transactions, one balance update per user in a
+// single statement, one rollup upsert and one batch of checkpoint updates.
+//
+// After the claimed rules, locks follow TransactionService: the transaction rows, then the users rows (in id
+// order, since a chunk holds many), then rollup rows, then checkpoints.
+@Service
+public class RecurringTransactionScheduler implements InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(RecurringTransactionScheduler.class);
+    // a rule that far behind stays due and goes on in a later chunk
+    private static final int MAX_OCCURRENCES_PER_CHUNK = 1000;
+    // hibernate's pooled optimizer takes the 50 ids up to each value it draws, see V1__baseline.sql
+    private static final int ID_BLOCK = 50;
+
+    private static final String CLAIM = "SELECT id, user_id, category_id, is_income, amount, frequency, repeat_every, " +
+            "start_date, end_date, occurrences FROM recurring_transaction WHERE next_run <= ? " +
+            "ORDER BY next_run LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String INSERT_TRANSACTIONS = "INSERT INTO transactions (id, user_id, category_id, is_income, amount, date) " +
+            "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::boolean[], ?::float8[], ?::timestamp[])";
+
+    private static final String ADVANCE_RULES = "UPDATE recurring_transaction r SET occurrences = d.occurrences, next_run = d.next_run " +
+            "FROM unnest(?::bigint[], ?::bigint[], ?::timestamp[]) AS d(id, occurrences, next_run) WHERE r.id = d.id";
+
+    private static final String ADD_TO_BALANCES = "UPDATE users u SET balance = u.balance + d.delta, data_version = u.data_version + 1 " +
+            "FROM unnest(?::bigint[], ?::float8[]) AS d(id, delta) WHERE u.id = d.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MonthlyRollupService monthlyRollupService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transactions.recurring.chunk-size}")
+    private int chunkSize;
+
+    @Value("${transactions.recurring.threads}")
+    private int threads;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private Counter materialized;
+    private Timer duration;
+
+    public RecurringTransactionScheduler(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MonthlyRollupService monthlyRollupService, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthlyRollupService = monthlyRollupService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        materialized = Counter.builder("transactions.recurring.materialized").register(meterRegistry);
+        duration = Timer.builder("transactions.recurring.duration").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${transactions.recurring.cron}")
+    public void scheduled() {
+        materializeDue(LocalDateTime.now());
+    }
+
+    // the number of transactions made, or -1 if a run is already going
+    public long materializeDue(LocalDateTime now) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Recurring transactions are already being materialized");
+            return -1;
+        }
+        try {
+            long start = System.nanoTime();
+            long made = run(now);
+            long elapsed = System.nanoTime() - start;
+            duration.record(elapsed, TimeUnit.NANOSECONDS);
+            if (made > 0) {
+                log.info("Materialized {} recurring transactions due by {} in {} ms", made, now, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+            return made;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long run(LocalDateTime now) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("recurring-transactions-"));
+        try {
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> work(now)));
+            }
+            // every worker is waited for, so no chunk is still running when the next run may start
+            long made = 0;
+            Throwable failure = null;
+            for (Future<Long> worker : workers) {
+                try {
+                    made += worker.get();
+                } catch (ExecutionException e) {
+                    failure = failure == null ? e.getCause() : failure;
+                }
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Materializing recurring transactions failed after " + made + " transactions", failure);
+            }
+            return made;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while materializing recurring transactions", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // claims chunks until a claim comes back short: the rest is done or held by another worker
+    private long work(LocalDateTime now) {
+        long made = 0;
+        while (true) {
+            Chunk chunk = transactionTemplate.execute(status -> materializeChunk(now));
+            made += chunk.transactions();
+            materialized.increment(chunk.transactions());
+            if (chunk.rules() < chunkSize) {
+                return made;
+            }
+        }
+    }
+
+    private Chunk materializeChunk(LocalDateTime now) {
+        List<Rule> rules = jdbcTemplate.query(CLAIM, Rule::read, now, chunkSize);
+        if (rules.isEmpty()) {
+            return new Chunk(0, 0);
+        }
+
+        List<Occurrence> occurrences = new ArrayList<>();
+        int n = rules.size();
+        Long[] ruleIds = new Long[n];
+        Long[] ruleOccurrences = new Long[n];
+        String[] nextRuns = new String[n];
+        for (int i = 0; i < n; i++) {
+            Rule rule = rules.get(i);
+            long next = rule.occurrences();
+            LocalDateTime at = rule.occurrence(next);
+            while (!at.isAfter(now) && !rule.endsBefore(at) && next - rule.occurrences() < MAX_OCCURRENCES_PER_CHUNK) {
+                occurrences.add(new Occurrence(rule, at));
+                at = rule.occurrence(++next);
+            }
+            ruleIds[i] = rule.id();
+            ruleOccurrences[i] = next;
+            nextRuns[i] = rule.endsBefore(at) ? null : at.toString();
+        }
+        jdbcTemplate.update(ADVANCE_RULES, ruleIds, ruleOccurrences, nextRuns);
+        if (occurrences.isEmpty()) {
+            return new Chunk(n, 0);
+        }
+
+        insertTransactions(occurrences);
+
+        // one delta per user and per (user, category, month)
+        Map<Long, Double> balances = new TreeMap<>();
+        Map<RollupKey, MonthlyRollupService.MonthDelta> months = new HashMap<>();
+        for (Occurrence occurrence : occurrences) {
+            Rule rule = occurrence.rule();
+            double amount = rule.amount();
+            balances.merge(rule.userId(), rule.isIncome() ? amount : -amount, Double::sum);
+            RollupKey key = new RollupKey(rule.userId(), rule.categoryId(), occurrence.at().toLocalDate().withDayOfMonth(1));
+            months.merge(key,
+                    new MonthlyRollupService.MonthDelta(key.userId(), key.categoryId(), key.month(),
+                            rule.isIncome() ? amount : 0.0, rule.isIncome() ? 0.0 : amount, 1),
+                    (a, b) -> new MonthlyRollupService.MonthDelta(a.userId(), a.categoryId(), a.month(),
+                            a.income() + b.income(), a.expense() + b.expense(), a.count() + b.count()));
+        }
+
+        Long[] userIds = balances.keySet().toArray(new Long[0]);
+        Double[] deltas = balances.values().toArray(new Double[0]);
+        // an UPDATE ... FROM locks in whatever order the join returns, so take the rows in id order first; with
+        // the lock the update itself takes, which the key share locks of the inserted rows' foreign key don't block
+        jdbcTemplate.queryForList("SELECT id FROM users WHERE id = ANY(?) ORDER BY id FOR NO KEY UPDATE", Long.class, (Object) userIds);
+        jdbcTemplate.update(ADD_TO_BALANCES, userIds, deltas);
+        monthlyRollupService.addMonths(new ArrayList<>(months.values()));
+
+        return new Chunk(n, occurrences.size());
+    }
+
+    private void insertTransactions(List<Occurrence> occurrences) {
+        int n = occurrences.size();
+        Long[] ids = allocateIds(n);
+        Long[] userIds = new Long[n];
+        Long[] categoryIds = new Long[n];
+        Boolean[] incomes = new Boolean[n];
+        Double[] amounts = new Double[n];
+        String[] dates = new String[n];
+        for (int i = 0; i < n; i++) {
+            Occurrence occurrence = occurrences.get(i);
+            userIds[i] = occurrence.rule().userId();
+            categoryIds[i] = occurrence.rule().categoryId();
+            incomes[i] = occurrence.rule().isIncome();
+            amounts[i] = occurrence.rule().amount();
+            dates[i] = occurrence.at().toString();
+        }
+        jdbcTemplate.update(INSERT_TRANSACTIONS, ids, userIds, categoryIds, incomes, amounts, dates);
+    }
+
+    // whole blocks from transactions_seq, so the ids never collide with the ones hibernate hands out
+    private Long[] allocateIds(int count) {
+        int blocks = (count + ID_BLOCK - 1) / ID_BLOCK;
+        List<Long> highs = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT nextval('transactions_seq') FROM generate_series(1, ?)", Long.class, blocks));
+        // a fresh sequence starts at 1, which can't top a block of positive ids; hibernate draws again then too
+        for (int b = 0; b < blocks; b++) {
+            while (highs.get(b) < ID_BLOCK) {
+                highs.set(b, jdbcTemplate.queryForObject("SELECT nextval('transactions_seq')", Long.class));
+            }
+        }
+        Long[] ids = new Long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = highs.get(i / ID_BLOCK) - ID_BLOCK + 1 + i % ID_BLOCK;
+        }
+        return ids;
+    }
+
+    private record Chunk(int rules, int transactions) {}
+
+    private record Occurrence(Rule rule, LocalDateTime at) {}
+
+    private record RollupKey(Long userId, Long categoryId, LocalDate month) {}
+
+    private record Rule(Long id, Long userId, Long categoryId, boolean isIncome, double amount, RecurrenceFrequency frequency,
+                        int every, LocalDateTime startDate, LocalDate endDate, long occurrences) {
+        static Rule read(ResultSet rs, int rowNum) throws SQLException {
+            return new Rule(rs.getLong("id"), rs.getLong("user_id"), rs.getLong("category_id"), rs.getBoolean("is_income"),
+                    rs.getDouble("amount"), RecurrenceFrequency.valueOf(rs.getString("frequency")), rs.getInt("repeat_every"),
+                    rs.getObject("start_date", LocalDateTime.class), rs.getObject("end_date", LocalDate.class), rs.getLong("occurrences"));
+        }
+
+        LocalDateTime occurrence(long n) {
+            return frequency.occurrence(startDate, every, n);
+        }
+
+        boolean endsBefore(LocalDateTime at) {
+            return endDate != null && at.toLocalDate().isAfter(endDate);
+        }
+    }
+}
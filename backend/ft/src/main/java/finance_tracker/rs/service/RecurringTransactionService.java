@@ -0,0 +1,106 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.RecurringTransaction;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.RecurringTransactionDto;
+import finance_tracker.rs.model.dto.RecurringTransactionView;
+import finance_tracker.rs.repository.RecurringTransactionRepository;
+import finance_tracker.rs.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A user's rules; RecurringTransactionScheduler turns the due occurrences into transactions, including
+// those of a start date in the past, up to max-past-occurrences of them.
+@Service
+@Transactional
+public class RecurringTransactionService {
+    private final RecurringTransactionRepository recurringTransactionRepository;
+    private final UserRepository userRepository;
+    private final CategoryDictionary categoryDictionary;
+
+    @Value("${transactions.recurring.max-past-occurrences}")
+    private int maxPastOccurrences;
+
+    @Value("${transactions.recurring.max-per-user}")
+    private int maxPerUser;
+
+    public RecurringTransactionService(RecurringTransactionRepository recurringTransactionRepository, UserRepository userRepository, CategoryDictionary categoryDictionary) {
+        this.recurringTransactionRepository = recurringTransactionRepository;
+        this.userRepository = userRepository;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RecurringTransactionView> getRecurringTransactions(User user) {
+        return recurringTransactionRepository.findByUserIdOrderById(user.getId()).stream()
+                .map(this::view)
+                .toList();
+    }
+
+    public RecurringTransactionView createRecurringTransaction(RecurringTransactionDto dto, User user) {
+        if (dto.amount() == null || dto.amount().isNaN() || dto.amount().isInfinite() || dto.amount() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be a positive number");
+        }
+        if (dto.frequency() == null || dto.startDate() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Frequency and startDate are required");
+        }
+        int every = dto.every() == null ? 1 : dto.every();
+        if (every < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "every must be at least 1");
+        }
+        if (dto.endDate() != null && dto.endDate().isBefore(dto.startDate().toLocalDate())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endDate must not be before startDate");
+        }
+        if (pastOccurrences(dto, every, LocalDateTime.now()) > maxPastOccurrences) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "startDate is too far in the past, it would create more than " + maxPastOccurrences + " transactions at once");
+        }
+
+        // a new category's key before the user row, the order TransactionService and the group committer lock in
+        Long categoryId = categoryDictionary.resolve(dto.category()).getId();
+        userRepository.lockById(user.getId());
+        if (recurringTransactionRepository.countByUserId(user.getId()) >= maxPerUser) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxPerUser + " recurring transactions per user");
+        }
+
+        RecurringTransaction rule = new RecurringTransaction();
+        rule.setUserId(user.getId());
+        rule.setCategoryId(categoryId);
+        rule.setIncome(dto.isIncome());
+        rule.setAmount(dto.amount());
+        rule.setFrequency(dto.frequency());
+        rule.setEvery(every);
+        rule.setStartDate(dto.startDate());
+        rule.setEndDate(dto.endDate());
+        rule.setOccurrences(0);
+        rule.setNextRun(dto.startDate());
+        return view(recurringTransactionRepository.save(rule));
+    }
+
+    // transactions it already made stay
+    public boolean deleteRecurringTransaction(Long id, User user) {
+        return recurringTransactionRepository.deleteByIdAndUserId(id, user.getId()) > 0;
+    }
+
+    // occurrences already due, counted up to one past the limit
+    private long pastOccurrences(RecurringTransactionDto dto, int every, LocalDateTime now) {
+        long n = 0;
+        LocalDateTime at = dto.startDate();
+        while (n <= maxPastOccurrences && !at.isAfter(now) && (dto.endDate() == null || !at.toLocalDate().isAfter(dto.endDate()))) {
+            at = dto.frequency().occurrence(dto.startDate(), every, ++n);
+        }
+        return n;
+    }
+
+    private RecurringTransactionView view(RecurringTransaction rule) {
+        return new RecurringTransactionView(rule.getId(), rule.isIncome(), rule.getAmount(),
+                categoryDictionary.name(rule.getCategoryId()), rule.getFrequency(), rule.getEvery(),
+                rule.getStartDate(), rule.getEndDate(), rule.getNextRun());
+    }
+}
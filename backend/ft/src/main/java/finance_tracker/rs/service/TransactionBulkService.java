@@ -0,0 +1,182 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.Category;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.BulkUpdateResult;
+import finance_tracker.rs.model.dto.TransactionFilter;
+import finance_tracker.rs.repository.UserRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Deletes or recategorizes every transaction of the caller that matches a filter or an id list, in one
+// statement: a data-modifying CTE that hands back the affected rows summed per (category, month). Those
+// sums give one balance update and one rollup update per month, so a thousand rows cost the same
+// handful of statements as one.
+//
+// Locks are taken as in updateTransaction: the transaction rows, then the users row, then rollup rows.
+@Service
+@Transactional
+public class TransactionBulkService {
+    static final int MAX_IDS = 10_000;
+
+    private static final String MONTHLY_SUMS = "SELECT category_id, CAST(date_trunc('month', date) AS date) AS month, " +
+            "SUM(CASE WHEN is_income THEN amount ELSE 0 END) AS income, " +
+            "SUM(CASE WHEN is_income THEN 0 ELSE amount END) AS expense, " +
+            "COUNT(*) AS count " +
+            "FROM affected GROUP BY 1, 2 ORDER BY 1, 2";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final MonthlyRollupService monthlyRollupService;
+    private final CategoryDictionary categoryDictionary;
+
+    public TransactionBulkService(JdbcTemplate jdbcTemplate, UserRepository userRepository, MonthlyRollupService monthlyRollupService, CategoryDictionary categoryDictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.monthlyRollupService = monthlyRollupService;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    public BulkUpdateResult delete(TransactionFilter filter, List<Long> ids, User user) {
+        Where where = where(filter, ids, user);
+        if (where == null) {
+            return new BulkUpdateResult(0, currentBalance(user));
+        }
+
+        List<MonthlySum> sums = jdbcTemplate.query(
+                "WITH affected AS (DELETE FROM transactions WHERE " + where.sql() +
+                        " RETURNING category_id, date, is_income, amount) " + MONTHLY_SUMS,
+                MonthlySum::read, where.args().toArray());
+        if (sums.isEmpty()) {
+            return new BulkUpdateResult(0, currentBalance(user));
+        }
+
+        long affected = 0;
+        double delta = 0.0;
+        for (MonthlySum sum : sums) {
+            affected += sum.count();
+            delta += sum.expense() - sum.income();
+        }
+        Double balance = userRepository.addToBalance(user.getId(), delta);
+        for (MonthlySum sum : sums) {
+            monthlyRollupService.addMonth(user.getId(), sum.categoryId(), sum.month(), -sum.income(), -sum.expense(), -sum.count());
+        }
+        return new BulkUpdateResult(affected, balance);
+    }
+
+    public BulkUpdateResult recategorize(TransactionFilter filter, List<Long> ids, String categoryName, User user) {
+        Category category = categoryDictionary.resolve(categoryName);
+        Where where = where(filter, ids, user);
+        if (where == null) {
+            return new BulkUpdateResult(0, currentBalance(user));
+        }
+
+        // RETURNING only sees the new row, so the old category comes from the locked rows it replaces
+        List<Object> args = new ArrayList<>();
+        args.add(category.getId());
+        args.addAll(where.args());
+        args.add(category.getId());
+        List<MonthlySum> sums = jdbcTemplate.query(
+                "WITH affected AS (UPDATE transactions t SET category_id = ? " +
+                        "FROM (SELECT id, date, category_id FROM transactions WHERE " + where.sql() +
+                        " AND category_id <> ? FOR UPDATE) old " +
+                        "WHERE t.id = old.id AND t.date = old.date " +
+                        "RETURNING old.category_id, t.date, t.is_income, t.amount) " + MONTHLY_SUMS,
+                MonthlySum::read, args.toArray());
+        if (sums.isEmpty()) {
+            return new BulkUpdateResult(0, currentBalance(user));
+        }
+
+        // the balance stays, but cached reads of this user must not
+        userRepository.bumpDataVersion(user.getId());
+        long affected = 0;
+        for (MonthlySum sum : sums) {
+            affected += sum.count();
+            monthlyRollupService.moveCategory(user.getId(), sum.categoryId(), category.getId(), sum.month(),
+                    sum.income(), sum.expense(), sum.count());
+        }
+        return new BulkUpdateResult(affected, currentBalance(user));
+    }
+
+    // the caller's rows matching the filter and ids, or null when no row can match
+    private Where where(TransactionFilter filter, List<Long> ids, User user) {
+        StringBuilder sql = new StringBuilder("user_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(user.getId());
+        boolean narrowed = false;
+
+        if (ids != null && !ids.isEmpty()) {
+            if (ids.size() > MAX_IDS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_IDS + " ids at once");
+            }
+            sql.append(" AND id = ANY(?)");
+            args.add(ids.toArray(new Long[0]));
+            narrowed = true;
+        }
+        // the same conditions as TransactionService.buildPredicates, TransactionBulkServiceTests checks they agree
+        if (filter != null) {
+            if (filter.isIncome() != null) {
+                sql.append(" AND is_income = ?");
+                args.add(filter.isIncome());
+                narrowed = true;
+            }
+            if (filter.startDate() != null) {
+                sql.append(" AND date >= ?");
+                args.add(filter.startDate());
+                narrowed = true;
+            }
+            if (filter.endDate() != null) {
+                sql.append(" AND date <= ?");
+                args.add(filter.endDate());
+                narrowed = true;
+            }
+            if (filter.minAmount() != null) {
+                sql.append(" AND amount >= ?");
+                args.add(filter.minAmount());
+                narrowed = true;
+            }
+            if (filter.maxAmount() != null) {
+                sql.append(" AND amount <= ?");
+                args.add(filter.maxAmount());
+                narrowed = true;
+            }
+            if (filter.category() != null && !filter.category().isEmpty()) {
+                Set<Long> categoryIds = categoryDictionary.idsContaining(filter.category());
+                if (categoryIds.isEmpty()) {
+                    return null;
+                }
+                sql.append(" AND category_id = ANY(?)");
+                args.add(categoryIds.toArray(new Long[0]));
+                narrowed = true;
+            }
+        }
+
+        if (!narrowed) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Pass ids or at least one filter");
+        }
+        return new Where(sql.toString(), args);
+    }
+
+    private double currentBalance(User user) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM users WHERE id = ?", Double.class, user.getId());
+    }
+
+    private record Where(String sql, List<Object> args) {}
+
+    private record MonthlySum(Long categoryId, LocalDate month, double income, double expense, long count) {
+        static MonthlySum read(ResultSet rs, int rowNum) throws SQLException {
+            return new MonthlySum(rs.getLong("category_id"), rs.getObject("month", LocalDate.class),
+                    rs.getDouble("income"), rs.getDouble("expense"), rs.getLong("count"));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package finance_tracker.rs.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// opaque "after" token for keyset paging: sort column, its value and the id of the last row
+public record TransactionCursor(String sortBy, Comparable<?> key, Long id) {
+
+    public String encode() {
+        String raw = sortBy + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String after, String sortBy) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !parts[0].equals(sortBy)) {
+                throw new IllegalArgumentException();
+            }
+            return new TransactionCursor(sortBy, parseKey(sortBy, parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private static Comparable<?> parseKey(String sortBy, String value) {
+        return switch (sortBy) {
+            case "date" -> LocalDateTime.parse(value);
+            case "amount" -> Double.valueOf(value);
+            default -> throw new IllegalArgumentException();
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package finance_tracker.rs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finance_tracker.rs.model.Transaction;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.TransactionDto;
+import finance_tracker.rs.model.dto.TransactionFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@Transactional(readOnly = true)
+public class TransactionExportService {
+    private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
+    private final CategoryDictionary categoryDictionary;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${transactions.export.fetch-size}")
+    private int fetchSize;
+
+    public TransactionExportService(TransactionService transactionService, ObjectMapper objectMapper, CategoryDictionary categoryDictionary) {
+        this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    // rows go from a forward-only cursor straight to the output, nothing is collected in memory
+    public void export(TransactionFilter filter, boolean ndjson, User user, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Transaction> root = cq.from(Transaction.class);
+
+        // plain columns instead of entities, so no rows pile up in the persistence context
+        cq.multiselect(root.get("isIncome"), root.get("date"), root.get("amount"), root.get("category").get("id"));
+        List<Predicate> predicates = transactionService.buildPredicates(cb, root, filter);
+        predicates.add(cb.equal(root.get("user"), user));
+        cq.where(predicates.toArray(new Predicate[0]));
+        cq.orderBy(cb.asc(root.get("date")), cb.asc(root.get("id")));
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (!ndjson) {
+            writer.write("isIncome,date,amount,category\n");
+        }
+
+        try (Stream<Tuple> rows = entityManager.createQuery(cq)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(row -> {
+                TransactionDto dto = new TransactionDto(
+                        row.get(0, Boolean.class),
+                        row.get(1, LocalDateTime.class),
+                        row.get(2, Double.class),
+                        categoryDictionary.name(row.get(3, Long.class)));
+                try {
+                    writer.write(ndjson ? objectMapper.writeValueAsString(dto) : toCsv(dto));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private String toCsv(TransactionDto dto) {
+        String category = dto.category();
+        if (category.contains(",") || category.contains("\"") || category.contains("\n") || category.contains("\r")) {
+            category = "\"" + category.replace("\"", "\"\"") + "\"";
+        }
+        return dto.isIncome() + "," + dto.date() + "," + dto.amount() + "," + category;
+    }
+}
@@ -0,0 +1,334 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.Category;
+import finance_tracker.rs.model.Transaction;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.TransactionDto;
+import finance_tracker.rs.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Group commit for POST /transactions: creates queue up here and a few flusher threads write whatever has
+// arrived within max-wait-ms (up to max-batch of them) in one database transaction - one batched insert, one
+// balance update per user and one rollup upsert per (user, category, month) - so a burst pays for one commit
+// instead of one per request. Each caller still gets its own row and id. Requests are validated before they
+// queue, and if a batch fails anyway, its requests are retried one by one, so a bad request only fails itself.
+//
+// A caller waits at most submit-timeout-ms. A request no flusher has taken by then is withdrawn and never
+// written; one a flusher is already writing gets the outcome of that write.
+//
+// Locks are taken in a fixed order (categories by name, users by id, rollup rows by key), the same order
+// the single-row path follows, so flushers running side by side cannot deadlock each other.
+@Component
+@ConditionalOnProperty(name = "transactions.group-commit.enabled", havingValue = "true")
+public class TransactionGroupCommitter implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(TransactionGroupCommitter.class);
+
+    private final UserRepository userRepository;
+    private final MonthlyRollupService monthlyRollupService;
+    private final CategoryDictionary categoryDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${transactions.group-commit.max-batch}")
+    private int maxBatch;
+
+    @Value("${transactions.group-commit.max-wait-ms}")
+    private long maxWaitMillis;
+
+    @Value("${transactions.group-commit.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${transactions.group-commit.flushers}")
+    private int flushers;
+
+    @Value("${transactions.group-commit.submit-timeout-ms}")
+    private long submitTimeoutMillis;
+
+    private BlockingQueue<Pending> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicInteger liveFlushers = new AtomicInteger();
+    private volatile boolean running = true;
+    private DistributionSummary batchSizes;
+    private Counter rejected;
+    private Counter retried;
+    private Counter timedOut;
+
+    public TransactionGroupCommitter(UserRepository userRepository, MonthlyRollupService monthlyRollupService, CategoryDictionary categoryDictionary, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.monthlyRollupService = monthlyRollupService;
+        this.categoryDictionary = categoryDictionary;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        batchSizes = DistributionSummary.builder("transactions.group-commit.batch")
+                .description("Creates written by one commit")
+                .register(meterRegistry);
+        rejected = Counter.builder("transactions.group-commit.rejected").register(meterRegistry);
+        retried = Counter.builder("transactions.group-commit.retried").register(meterRegistry);
+        timedOut = Counter.builder("transactions.group-commit.timed-out").register(meterRegistry);
+        Gauge.builder("transactions.group-commit.queue", queue, BlockingQueue::size).register(meterRegistry);
+
+        liveFlushers.set(flushers);
+        for (int i = 0; i < flushers; i++) {
+            Thread thread = new Thread(this::runFlusher, "group-commit-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    // blocks until the batch holding this create has committed or failed, or the wait timed out
+    public Transaction submit(TransactionDto transactionDto, User user) {
+        validate(transactionDto);
+        Pending pending = new Pending(transactionDto, user);
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many transactions at once, try again later");
+        }
+
+        try {
+            try {
+                return pending.result.get(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.taken.compareAndSet(false, true)) {
+                    queue.remove(pending);
+                    timedOut.increment();
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting to write the transaction, try again later");
+                }
+                // a flusher has it, so the database decides; its own statement timeouts bound this wait
+                return pending.result.get(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for the transaction to commit");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transaction to commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Creating the transaction failed", e.getCause());
+        }
+    }
+
+    // the same requests the single-row path accepts, minus those that would only fail inside a batch
+    private static void validate(TransactionDto dto) {
+        if (dto.category() == null || dto.category().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category is required");
+        }
+        if (CategoryDictionary.hasControlCharacters(dto.category())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, CategoryDictionary.CONTROL_CHARACTERS);
+        }
+        if (dto.date() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Date is required");
+        }
+        if (dto.amount() == null || dto.amount().isNaN() || dto.amount().isInfinite()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amount must be a number");
+        }
+    }
+
+    // once the last flusher is gone, nothing would ever take what is still queued
+    private void runFlusher() {
+        try {
+            flushLoop();
+        } finally {
+            if (liveFlushers.decrementAndGet() == 0) {
+                running = false;
+                rejectQueued();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || !first.taken.compareAndSet(false, true)) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatch) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    // a caller that timed out has withdrawn it
+                    if (next.taken.compareAndSet(false, true)) {
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // shutdown: write what was already taken and what is still queued, then stop
+                running = false;
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (RuntimeException | Error e) {
+                log.error("Group commit flush failed", e);
+                batch.forEach(p -> p.result.completeExceptionally(e));
+                if (e instanceof Error error) {
+                    log.error("Group commit flusher {} stopped", Thread.currentThread().getName());
+                    throw error;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        try {
+            Map<Long, Double> balances = transactionTemplate.execute(status -> write(batch));
+            complete(batch, balances);
+        } catch (RuntimeException batchFailure) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(batchFailure);
+                return;
+            }
+            for (Pending pending : batch) {
+                retried.increment();
+                try {
+                    complete(List.of(pending), transactionTemplate.execute(status -> write(List.of(pending))));
+                } catch (RuntimeException e) {
+                    pending.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private Map<Long, Double> write(List<Pending> batch) {
+        Map<String, Category> categories = new TreeMap<>();
+        for (Pending pending : batch) {
+            categories.put(pending.dto.category(), null);
+        }
+        categories.replaceAll((name, unused) -> categoryDictionary.resolve(name));
+
+        Map<Long, Double> balanceDeltas = new TreeMap<>();
+        Map<RollupKey, double[]> rollup = new TreeMap<>();
+        for (Pending pending : batch) {
+            TransactionDto dto = pending.dto;
+            Long userId = pending.user.getId();
+            Category category = categories.get(dto.category());
+
+            Transaction transaction = new Transaction();
+            transaction.setIncome(dto.isIncome());
+            transaction.setDate(dto.date());
+            transaction.setAmount(dto.amount());
+            transaction.setCategory(category);
+            transaction.setUser(entityManager.getReference(User.class, userId));
+            entityManager.persist(transaction);
+            pending.transaction = transaction;
+
+            balanceDeltas.merge(userId, dto.isIncome() ? dto.amount() : -dto.amount(), Double::sum);
+            double[] sums = rollup.computeIfAbsent(
+                    new RollupKey(userId, category.getId(), dto.date().toLocalDate().withDayOfMonth(1)), k -> new double[3]);
+            sums[dto.isIncome() ? 0 : 1] += dto.amount();
+            sums[2]++;
+        }
+        entityManager.flush();
+
+        Map<Long, Double> balances = new TreeMap<>();
+        balanceDeltas.forEach((userId, delta) -> balances.put(userId, userRepository.addToBalance(userId, delta)));
+        rollup.forEach((key, sums) ->
+                monthlyRollupService.addMonth(key.userId(), key.categoryId(), key.month(), sums[0], sums[1], (long) sums[2]));
+        entityManager.clear();
+        return balances;
+    }
+
+    private void complete(List<Pending> batch, Map<Long, Double> balances) {
+        for (Pending pending : batch) {
+            // hand back the caller's own user, with the balance as of this commit
+            pending.user.setBalance(balances.get(pending.user.getId()));
+            pending.transaction.setUser(pending.user);
+            pending.result.complete(pending.transaction);
+        }
+    }
+
+    private void rejectQueued() {
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Pending pending : left) {
+            if (pending.taken.compareAndSet(false, true)) {
+                rejected.increment();
+                pending.result.completeExceptionally(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Not accepting transactions, try again later"));
+            }
+        }
+    }
+
+    // the flushers write what is queued before they stop; whatever is left after the wait is rejected
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        rejectQueued();
+    }
+
+    private static final class Pending {
+        private final TransactionDto dto;
+        private final User user;
+        private final CompletableFuture<Transaction> result = new CompletableFuture<>();
+        // by a flusher to write it, or by the caller to withdraw it; whichever comes first
+        private final AtomicBoolean taken = new AtomicBoolean();
+        // set by the flusher once persisted
+        private Transaction transaction;
+
+        private Pending(TransactionDto dto, User user) {
+            this.dto = dto;
+            this.user = user;
+        }
+    }
+
+    private record RollupKey(Long userId, Long categoryId, LocalDate month) implements Comparable<RollupKey> {
+        private static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::userId)
+                .thenComparing(RollupKey::categoryId)
+                .thenComparing(RollupKey::month);
+
+        @Override
+        public int compareTo(RollupKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package finance_tracker.rs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finance_tracker.rs.model.Category;
+import finance_tracker.rs.model.Transaction;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.ImportResult;
+import finance_tracker.rs.model.dto.ImportRowError;
+import finance_tracker.rs.model.dto.TransactionDto;
+import finance_tracker.rs.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class TransactionImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String CSV_HEADER = "isIncome,date,amount,category";
+
+    private final UserRepository userRepository;
+    private final MonthlyRollupService monthlyRollupService;
+    private final CategoryDictionary categoryDictionary;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${transactions.import.batch-size}")
+    private int batchSize;
+
+    public TransactionImportService(UserRepository userRepository, MonthlyRollupService monthlyRollupService, CategoryDictionary categoryDictionary, ObjectMapper objectMapper, TransactionTemplate transactionTemplate) {
+        this.userRepository = userRepository;
+        this.monthlyRollupService = monthlyRollupService;
+        this.categoryDictionary = categoryDictionary;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // reads the body line by line, so memory use depends on the batch size and not on the upload size
+    public ImportResult importTransactions(InputStream body, String contentType, User user) throws IOException {
+        Long userId = user.getId();
+        boolean ndjson = contentType != null && contentType.startsWith("application/x-ndjson");
+
+        ImportProgress progress = new ImportProgress();
+        List<TransactionDto> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (!ndjson && lineNumber == 1 && line.replace(" ", "").equalsIgnoreCase(CSV_HEADER))) {
+                    continue;
+                }
+                try {
+                    TransactionDto row = ndjson ? objectMapper.readValue(line, TransactionDto.class) : parseCsv(line);
+                    validate(row);
+                    batch.add(row);
+                    batchLines.add(lineNumber);
+                } catch (Exception e) {
+                    progress.fail(lineNumber, e.getMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(userId, batch, batchLines, progress);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(userId, batch, batchLines, progress);
+        }
+
+        return new ImportResult(progress.imported, progress.failed, progress.errors);
+    }
+
+    private void writeBatch(Long userId, List<TransactionDto> batch, List<Long> batchLines, ImportProgress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(userId, batch));
+            progress.imported += batch.size();
+        } catch (RuntimeException e) {
+            for (Long line : batchLines) {
+                progress.fail(line, "Batch rejected by the database: " + e.getMessage());
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private void insertBatch(Long userId, List<TransactionDto> batch) {
+        User user = entityManager.getReference(User.class, userId);
+        double balanceDelta = 0.0;
+        Map<RollupKey, double[]> rollup = new HashMap<>();
+
+        // in name order, so two batches creating the same new categories cannot deadlock on them
+        Map<String, Category> categories = new TreeMap<>();
+        for (TransactionDto row : batch) {
+            categories.put(row.category(), null);
+        }
+        categories.replaceAll((name, unused) -> categoryDictionary.resolve(name));
+
+        for (TransactionDto row : batch) {
+            Category category = categories.get(row.category());
+            Transaction transaction = new Transaction();
+            transaction.setIncome(row.isIncome());
+            transaction.setDate(row.date());
+            transaction.setAmount(row.amount());
+            transaction.setCategory(category);
+            transaction.setUser(user);
+            entityManager.persist(transaction);
+
+            balanceDelta += row.isIncome() ? row.amount() : -row.amount();
+            double[] sums = rollup.computeIfAbsent(
+                    new RollupKey(category.getId(), row.date().toLocalDate().withDayOfMonth(1)), k -> new double[3]);
+            sums[row.isIncome() ? 0 : 1] += row.amount();
+            sums[2]++;
+        }
+        entityManager.flush();
+
+        // one balance update and one upsert per (category, month) for the whole batch
+        userRepository.addToBalance(userId, balanceDelta);
+        rollup.forEach((key, sums) ->
+                monthlyRollupService.addMonth(userId, key.categoryId(), key.month(), sums[0], sums[1], (long) sums[2]));
+        entityManager.clear();
+    }
+
+    private TransactionDto parseCsv(String line) {
+        String[] fields = line.split(",", 4);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Expected " + CSV_HEADER);
+        }
+        String isIncome = fields[0].trim();
+        if (!isIncome.equalsIgnoreCase("true") && !isIncome.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("isIncome must be true or false");
+        }
+        String category = fields[3].trim();
+        if (category.length() >= 2 && category.startsWith("\"") && category.endsWith("\"")) {
+            category = category.substring(1, category.length() - 1).replace("\"\"", "\"");
+        }
+        return new TransactionDto(
+                Boolean.parseBoolean(isIncome),
+                LocalDateTime.parse(fields[1].trim(), DateTimeFormatter.ISO_DATE_TIME),
+                Double.valueOf(fields[2].trim()),
+                category);
+    }
+
+    private void validate(TransactionDto row) {
+        if (row.date() == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        if (row.amount() == null || row.amount().isNaN() || row.amount().isInfinite() || row.amount() <= 0) {
+            throw new IllegalArgumentException("Amount must be a positive number");
+        }
+        if (row.category() == null || row.category().isBlank()) {
+            throw new IllegalArgumentException("Category is required");
+        }
+        if (CategoryDictionary.hasControlCharacters(row.category())) {
+            throw new IllegalArgumentException(CategoryDictionary.CONTROL_CHARACTERS);
+        }
+    }
+
+    private record RollupKey(Long categoryId, LocalDate month) {}
+
+    private static class ImportProgress {
+        private long imported;
+        private long failed;
+        private final List<ImportRowError> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(line, message));
+            }
+        }
+    }
+}
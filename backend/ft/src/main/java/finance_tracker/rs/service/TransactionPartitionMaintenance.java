@@ -0,0 +1,95 @@
+package finance_tracker.rs.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.List;
+
+// Keeps the monthly partitions of transactions ahead of time (see V2__partition_transactions_by_month.sql):
+// the current month and the next months-ahead always have a partition, months whose rows landed in the default
+// partition get one (or, when already archived, the rows join the archived table, see V6), and with
+// retention-months set, older months are moved to the archive schema.
+@Component
+public class TransactionPartitionMaintenance {
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitionMaintenance.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${transactions.partitions.months-ahead}")
+    private int monthsAhead;
+
+    // 0 keeps every month attached
+    @Value("${transactions.partitions.retention-months}")
+    private int retentionMonths;
+
+    @Value("${transactions.partitions.archive-tablespace}")
+    private String archiveTablespace;
+
+    public TransactionPartitionMaintenance(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${transactions.partitions.cron}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            create(current.plusMonths(i));
+        }
+
+        // dates far in the past or future, imported history
+        List<Date> strays = jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(date_trunc('month', date) AS date) FROM transactions_default", Date.class);
+        strays.forEach(month -> create(YearMonth.from(month.toLocalDate())));
+
+        if (retentionMonths > 0) {
+            archiveBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    // a month that fails is logged and retried on the next run, so it neither fails startup nor holds up the others
+    private void create(YearMonth month) {
+        try {
+            Boolean created = jdbcTemplate.queryForObject(
+                    "SELECT create_transactions_partition(?)", Boolean.class, Date.valueOf(month.atDay(1)));
+            if (Boolean.TRUE.equals(created)) {
+                log.info("Created transactions partition for {}", month);
+            }
+        } catch (DataAccessException e) {
+            log.error("Could not create the transactions partition for {}", month, e);
+        }
+    }
+
+    private void archiveBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'transactions'::regclass AND c.relname ~ '^transactions_[0-9]{4}_[0-9]{2}$'",
+                String.class);
+        for (String partition : partitions) {
+            YearMonth month = YearMonth.of(
+                    Integer.parseInt(partition.substring(13, 17)), Integer.parseInt(partition.substring(18, 20)));
+            if (month.isBefore(cutoff)) {
+                try {
+                    jdbcTemplate.queryForObject("SELECT archive_transactions_partition(?, ?)", Boolean.class,
+                            Date.valueOf(month.atDay(1)), archiveTablespace);
+                    log.info("Archived transactions partition for {} to archive.{}", month, partition);
+                } catch (DataAccessException e) {
+                    log.error("Could not archive the transactions partition for {}", month, e);
+                }
+            }
+        }
+    }
+}
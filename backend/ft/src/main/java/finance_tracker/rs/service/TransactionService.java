@@ -1,50 +1,84 @@
 package finance_tracker.rs.service;
 
 
-import finance_tracker.rs.configuration.JwtUtil;
 import finance_tracker.rs.model.Transaction;
 import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.CursorSlice;
 import finance_tracker.rs.model.dto.TransactionDto;
 import finance_tracker.rs.model.dto.TransactionFilter;
+import finance_tracker.rs.model.dto.TransactionView;
 import finance_tracker.rs.repository.TransactionRepository;
 import finance_tracker.rs.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
-import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.*;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
+@Timed(value = "transactions.service", histogram = true)
 public class TransactionService {
+    private static final Set<String> SORT_KEYS = Set.of("date", "amount", "category", "isIncome");
+    private static final Set<String> SEEK_SORT_KEYS = Set.of("date", "amount");
+    private static final int MAX_SEEK_SIZE = 1000;
+
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
-    private final JwtUtil jwtUtil;
+    private final MonthlyRollupService monthlyRollupService;
+    private final CategoryDictionary categoryDictionary;
+    private final TransactionBulkService transactionBulkService;
+    private final TransactionTemplate transactionTemplate;
+    // only there with transactions.group-commit.enabled=true
+    private final TransactionGroupCommitter groupCommitter;
     @PersistenceContext
     private EntityManager entityManager;
 
-    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository, JwtUtil jwtUtil) {
+    public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository, MonthlyRollupService monthlyRollupService, CategoryDictionary categoryDictionary, TransactionBulkService transactionBulkService, TransactionTemplate transactionTemplate, ObjectProvider<TransactionGroupCommitter> groupCommitter) {
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
-        this.jwtUtil = jwtUtil;
+        this.monthlyRollupService = monthlyRollupService;
+        this.categoryDictionary = categoryDictionary;
+        this.transactionBulkService = transactionBulkService;
+        this.transactionTemplate = transactionTemplate;
+        this.groupCommitter = groupCommitter.getIfAvailable();
     }
 
-    public Page<Transaction> getAllTransactions(
+    @Transactional(readOnly = true)
+    public Page<TransactionView> getAllTransactions(
             TransactionFilter filter,
             int page,
             int size,
             String sortBy,
-            String sortDirection) {
+            String sortDirection,
+            User user) {
 
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sorting is supported by " + SORT_KEYS);
+        }
         Pageable pageable = PageRequest.of(
                 page,
                 size,
@@ -52,9 +86,112 @@ public class TransactionService {
         );
 
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Transaction> cq = cb.createQuery(Transaction.class);
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
         Root<Transaction> root = cq.from(Transaction.class);
+        cq.select(view(cb, root));
+
+        List<Predicate> predicates = buildPredicates(cb, root, filter);
+        predicates.add(cb.equal(root.get("user"), user));
+
+        cq.where(predicates.toArray(new Predicate[0]));
+
+        // a category sorts by its name, not by its id; id breaks ties so pages don't overlap
+        Expression<?> key = sortBy.equals("category") ? root.join("category").get("name") : root.get(sortBy);
+        if (sortDirection.equalsIgnoreCase("desc")) {
+            cq.orderBy(cb.desc(key), cb.desc(root.get("id")));
+        } else {
+            cq.orderBy(cb.asc(key), cb.asc(root.get("id")));
+        }
+
+        TypedQuery<Tuple> query = entityManager.createQuery(cq);
+
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+
+        List<TransactionView> resultList = query.getResultList().stream().map(this::toView).toList();
+
+        // skips the count when this page already tells us the total (a short first or last page)
+        return PageableExecutionUtils.getPage(resultList, pageable, () -> {
+            CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+            Root<Transaction> countRoot = countQuery.from(Transaction.class);
+            countQuery.select(cb.count(countRoot));
+            // predicates are bound to their root, so the count query needs its own
+            List<Predicate> countPredicates = buildPredicates(cb, countRoot, filter);
+            countPredicates.add(cb.equal(countRoot.get("user"), user));
+            countQuery.where(countPredicates.toArray(new Predicate[0]));
+            return entityManager.createQuery(countQuery).getSingleResult();
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSlice<TransactionView> getTransactionsAfter(
+            TransactionFilter filter,
+            String after,
+            int size,
+            String sortBy,
+            String sortDirection,
+            User user) {
+
+        if (!SEEK_SORT_KEYS.contains(sortBy)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor paging supports sorting by " + SEEK_SORT_KEYS);
+        }
+        if (size < 1 || size > MAX_SEEK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_SEEK_SIZE);
+        }
+        boolean desc = sortDirection.equalsIgnoreCase("desc");
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Transaction> root = cq.from(Transaction.class);
+        cq.select(view(cb, root));
+
+        List<Predicate> predicates = buildPredicates(cb, root, filter);
+        predicates.add(cb.equal(root.get("user"), user));
+        if (after != null && !after.isEmpty()) {
+            predicates.add(seekPredicate(cb, root, TransactionCursor.decode(after, sortBy), desc));
+        }
+        cq.where(predicates.toArray(new Predicate[0]));
+
+        // id breaks ties so the order matches the (user_id, key, id) index and is total
+        if (desc) {
+            cq.orderBy(cb.desc(root.get(sortBy)), cb.desc(root.get("id")));
+        } else {
+            cq.orderBy(cb.asc(root.get(sortBy)), cb.asc(root.get("id")));
+        }
+
+        // one extra row tells us whether there is a next slice without a count query
+        List<TransactionView> rows = entityManager.createQuery(cq)
+                .setMaxResults(size + 1)
+                .getResultList().stream().map(this::toView).toList();
+
+        boolean hasNext = rows.size() > size;
+        List<TransactionView> content = hasNext ? rows.subList(0, size) : rows;
 
+        String next = null;
+        if (hasNext) {
+            TransactionView last = content.get(content.size() - 1);
+            Comparable<?> key = sortBy.equals("date") ? last.date() : last.amount();
+            next = new TransactionCursor(sortBy, key, last.id()).encode();
+        }
+
+        return new CursorSlice<>(new ArrayList<>(content), size, hasNext, next);
+    }
+
+    // the category id is the foreign key column itself, so no join; the name comes from the dictionary
+    private CompoundSelection<Tuple> view(CriteriaBuilder cb, Root<Transaction> root) {
+        return cb.tuple(root.get("id"), root.get("isIncome"), root.get("date"), root.get("amount"), root.get("category").get("id"));
+    }
+
+    private TransactionView toView(Tuple row) {
+        return new TransactionView(
+                row.get(0, Long.class),
+                row.get(1, Boolean.class),
+                row.get(2, LocalDateTime.class),
+                row.get(3, Double.class),
+                categoryDictionary.name(row.get(4, Long.class)));
+    }
+
+    List<Predicate> buildPredicates(CriteriaBuilder cb, Root<Transaction> root, TransactionFilter filter) {
         List<Predicate> predicates = new ArrayList<>();
 
         if (filter.isIncome() != null) {
@@ -73,83 +210,84 @@ public class TransactionService {
             predicates.add(cb.lessThanOrEqualTo(root.get("amount"), filter.maxAmount()));
         }
         if (filter.category() != null && !filter.category().isEmpty()) {
-            predicates.add(cb.like(root.get("category"), "%" + filter.category() + "%"));
+            Set<Long> categoryIds = categoryDictionary.idsContaining(filter.category());
+            predicates.add(categoryIds.isEmpty() ? cb.disjunction() : root.get("category").get("id").in(categoryIds));
         }
+        return predicates;
+    }
 
-        cq.where(predicates.toArray(new Predicate[0]));
-
-        if (sortDirection.equalsIgnoreCase("desc")) {
-            cq.orderBy(cb.desc(root.get(sortBy)));
-        } else {
-            cq.orderBy(cb.asc(root.get(sortBy)));
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<? super K>> Predicate seekPredicate(
+            CriteriaBuilder cb, Root<Transaction> root, TransactionCursor cursor, boolean desc) {
+        Path<K> key = root.get(cursor.sortBy());
+        Path<Long> id = root.get("id");
+        K value = (K) cursor.key();
+
+        // the redundant bound on the key alone lets postgres start the index scan at the cursor
+        if (desc) {
+            return cb.and(
+                    cb.lessThanOrEqualTo(key, value),
+                    cb.or(cb.lessThan(key, value), cb.lessThan(id, cursor.id())));
         }
+        return cb.and(
+                cb.greaterThanOrEqualTo(key, value),
+                cb.or(cb.greaterThan(key, value), cb.greaterThan(id, cursor.id())));
+    }
 
-        TypedQuery<Transaction> query = entityManager.createQuery(cq);
-
-        query.setFirstResult((int) pageable.getOffset());
-        query.setMaxResults(pageable.getPageSize());
-
-        List<Transaction> resultList = query.getResultList();
 
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<Transaction> countRoot = countQuery.from(Transaction.class);
-        countQuery.select(cb.count(countRoot));
-        countQuery.where(predicates.toArray(new Predicate[0]));
-        Long total = entityManager.createQuery(countQuery).getSingleResult();
+    @Transactional(readOnly = true)
+    public Optional<TransactionView> getTransactionById(Long id, User user) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Transaction> root = cq.from(Transaction.class);
+        cq.select(view(cb, root));
+        cq.where(cb.equal(root.get("id"), id), cb.equal(root.get("user"), user));
 
-        return new PageImpl<>(resultList, pageable, total);
+        return entityManager.createQuery(cq).getResultStream().findFirst().map(this::toView);
     }
 
-
-    public Optional<Transaction> getTransactionById(Long id) {
-        return transactionRepository.findById(id);
+    // no transaction of its own: with group commit the caller only waits for the flusher's commit and
+    // must not hold a connection meanwhile
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Transaction createTransaction(TransactionDto transactionDto, User u) {
+        if (groupCommitter != null) {
+            return groupCommitter.submit(transactionDto, u);
+        }
+        return transactionTemplate.execute(status -> insertTransaction(transactionDto, u));
     }
 
-    @Transactional
-    public Transaction createTransaction(TransactionDto transactionDto, String auth) {
-
-        String username = jwtUtil.extractUserUsername(auth);
-        User u = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
+    private Transaction insertTransaction(TransactionDto transactionDto, User u) {
         Transaction transaction = new Transaction();
         transaction.setIncome(transactionDto.isIncome());
         transaction.setDate(transactionDto.date());
         transaction.setAmount(transactionDto.amount());
-        transaction.setCategory(transactionDto.category());
+        transaction.setCategory(categoryDictionary.resolve(transactionDto.category()));
         transaction.setUser(u);
 
-        if (transactionDto.isIncome()) {
-            u.setBalance(u.getBalance() + transactionDto.amount());
-        } else {
-            u.setBalance(u.getBalance() - transactionDto.amount());
-        }
-
         transactionRepository.save(transaction);
-        userRepository.save(u);
+        applyBalanceDelta(u, transactionDto.isIncome() ? transactionDto.amount() : -transactionDto.amount());
+        monthlyRollupService.add(transaction);
 
         return transaction;
     }
 
     @Transactional
-    public Transaction updateTransaction(Long id, TransactionDto transactionDto, String auth) {
-        String username = jwtUtil.extractUserUsername(auth);
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
+    public Transaction updateTransaction(Long id, TransactionDto transactionDto, User user) {
         Transaction transaction = transactionRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new RuntimeException("Transaction not found or not owned by user"));
 
         // store old values
         boolean wasIncome = transaction.isIncome();
         double oldAmount = transaction.getAmount();
+        Long oldCategoryId = transaction.getCategory().getId();
+        LocalDate oldDate = transaction.getDate().toLocalDate();
         boolean isIncomeNow = transactionDto.isIncome();
         double newAmount = transactionDto.amount();
 
         transaction.setIncome(isIncomeNow);
         transaction.setDate(transactionDto.date());
         transaction.setAmount(newAmount);
-        transaction.setCategory(transactionDto.category());
+        transaction.setCategory(categoryDictionary.resolve(transactionDto.category()));
 
         double balanceAdjustment = 0.0;
 
@@ -163,19 +301,24 @@ public class TransactionService {
             balanceAdjustment = oldAmount + newAmount;
         }
 
-        user.setBalance(user.getBalance() + balanceAdjustment);
-
         transactionRepository.save(transaction);
-        userRepository.save(user);
+        // users row before rollup rows, in the same order as createTransaction
+        applyBalanceDelta(user, balanceAdjustment);
+        monthlyRollupService.apply(user.getId(), oldCategoryId, oldDate, wasIncome, oldAmount, -1);
+        monthlyRollupService.add(transaction);
 
         return transaction;
     }
 
-    public boolean deleteTransaction(Long id) {
-        if (transactionRepository.existsById(id)) {
-            transactionRepository.deleteById(id);
-            return true;
-        }
-        return false;
+    private void applyBalanceDelta(User user, double delta) {
+        Double balance = userRepository.addToBalance(user.getId(), delta);
+        // keep the returned entity current without letting dirty checking write a stale balance back
+        entityManager.detach(user);
+        user.setBalance(balance);
+    }
+
+    // one DELETE ... RETURNING instead of loading the entity first, and the balance moves with it
+    public boolean deleteTransaction(Long id, User user) {
+        return transactionBulkService.delete(null, List.of(id), user).affected() > 0;
     }
 }
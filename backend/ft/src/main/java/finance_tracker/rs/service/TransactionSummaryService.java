@@ -0,0 +1,170 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.MonthlyRollup;
+import finance_tracker.rs.model.Transaction;
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.dto.CategoryTotal;
+import finance_tracker.rs.model.dto.MonthlyTotal;
+import finance_tracker.rs.model.dto.TransactionFilter;
+import finance_tracker.rs.model.dto.TransactionSummary;
+import finance_tracker.rs.repository.MonthlyRollupRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+@Transactional(readOnly = true)
+public class TransactionSummaryService {
+    private final TransactionService transactionService;
+    private final MonthlyRollupRepository monthlyRollupRepository;
+    private final CategoryDictionary categoryDictionary;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TransactionSummaryService(TransactionService transactionService, MonthlyRollupRepository monthlyRollupRepository, CategoryDictionary categoryDictionary) {
+        this.transactionService = transactionService;
+        this.monthlyRollupRepository = monthlyRollupRepository;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    public TransactionSummary getSummary(TransactionFilter filter, User user) {
+        if (canUseRollup(filter)) {
+            return summarizeRollup(filter, user);
+        }
+
+        List<CategoryTotal> categories = totalsByCategory(filter, user);
+        List<MonthlyTotal> months = totalsByMonth(filter, user);
+
+        return summarize(categories, months);
+    }
+
+    // the rollup only has whole months and no per-type counts or amounts of single rows
+    static boolean canUseRollup(TransactionFilter filter) {
+        if (filter.isIncome() != null || filter.minAmount() != null || filter.maxAmount() != null || filter.endDate() != null) {
+            return false;
+        }
+        LocalDateTime start = filter.startDate();
+        return start == null || start.equals(start.toLocalDate().withDayOfMonth(1).atStartOfDay());
+    }
+
+    private TransactionSummary summarizeRollup(TransactionFilter filter, User user) {
+        Set<Long> categoryIds = filter.category() == null || filter.category().isEmpty()
+                ? null : categoryDictionary.idsContaining(filter.category());
+        LocalDate start = filter.startDate() == null ? null : filter.startDate().toLocalDate();
+
+        Map<String, CategoryTotal> byCategory = new TreeMap<>();
+        Map<YearMonth, MonthlyTotal> byMonth = new TreeMap<>();
+
+        for (MonthlyRollup row : monthlyRollupRepository.findByUserIdOrderByMonth(user.getId())) {
+            if (row.getCount() == 0
+                    || (start != null && row.getMonth().isBefore(start))
+                    || (categoryIds != null && !categoryIds.contains(row.getCategoryId()))) {
+                continue;
+            }
+            String category = categoryDictionary.name(row.getCategoryId());
+            byCategory.merge(category,
+                    new CategoryTotal(category, row.getIncomeSum(), row.getExpenseSum(), row.getCount()),
+                    (a, b) -> new CategoryTotal(a.category(), a.income() + b.income(), a.expense() + b.expense(), a.count() + b.count()));
+            YearMonth month = YearMonth.from(row.getMonth());
+            byMonth.merge(month,
+                    new MonthlyTotal(month, row.getIncomeSum(), row.getExpenseSum(), row.getCount()),
+                    (a, b) -> new MonthlyTotal(a.month(), a.income() + b.income(), a.expense() + b.expense(), a.count() + b.count()));
+        }
+
+        return summarize(new ArrayList<>(byCategory.values()), new ArrayList<>(byMonth.values()));
+    }
+
+    static TransactionSummary summarize(List<CategoryTotal> categories, List<MonthlyTotal> months) {
+        double income = 0.0;
+        double expense = 0.0;
+        long count = 0;
+        for (CategoryTotal total : categories) {
+            income += total.income();
+            expense += total.expense();
+            count += total.count();
+        }
+        double savingsRate = income > 0 ? (income - expense) / income * 100 : 0.0;
+
+        return new TransactionSummary(income, expense, income - expense, savingsRate, count, categories, months);
+    }
+
+    private List<CategoryTotal> totalsByCategory(TransactionFilter filter, User user) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Transaction> root = cq.from(Transaction.class);
+
+        cq.multiselect(
+                root.get("category").get("id"),
+                incomeSum(cb, root),
+                expenseSum(cb, root),
+                cb.count(root));
+        cq.where(scoped(cb, root, filter, user));
+        cq.groupBy(root.get("category").get("id"));
+
+        // grouped by id, named and sorted from the dictionary
+        return entityManager.createQuery(cq).getResultList().stream()
+                .map(t -> new CategoryTotal(
+                        categoryDictionary.name(t.get(0, Long.class)),
+                        t.get(1, Double.class),
+                        t.get(2, Double.class),
+                        t.get(3, Long.class)))
+                .sorted(Comparator.comparing(CategoryTotal::category))
+                .toList();
+    }
+
+    private List<MonthlyTotal> totalsByMonth(TransactionFilter filter, User user) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Transaction> root = cq.from(Transaction.class);
+
+        Expression<LocalDateTime> month = cb.function("date_trunc", LocalDateTime.class, cb.literal("month"), root.get("date"));
+
+        cq.multiselect(month, incomeSum(cb, root), expenseSum(cb, root), cb.count(root));
+        cq.where(scoped(cb, root, filter, user));
+        cq.groupBy(month);
+        cq.orderBy(cb.asc(month));
+
+        return entityManager.createQuery(cq).getResultList().stream()
+                .map(t -> new MonthlyTotal(
+                        YearMonth.from(t.get(0, LocalDateTime.class)),
+                        t.get(1, Double.class),
+                        t.get(2, Double.class),
+                        t.get(3, Long.class)))
+                .toList();
+    }
+
+    private Predicate[] scoped(CriteriaBuilder cb, Root<Transaction> root, TransactionFilter filter, User user) {
+        List<Predicate> predicates = transactionService.buildPredicates(cb, root, filter);
+        predicates.add(cb.equal(root.get("user"), user));
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private Expression<Double> incomeSum(CriteriaBuilder cb, Root<Transaction> root) {
+        return cb.sum(cb.<Double>selectCase()
+                .when(cb.isTrue(root.get("isIncome")), root.get("amount"))
+                .otherwise(0.0));
+    }
+
+    private Expression<Double> expenseSum(CriteriaBuilder cb, Root<Transaction> root) {
+        return cb.sum(cb.<Double>selectCase()
+                .when(cb.isFalse(root.get("isIncome")), root.get("amount"))
+                .otherwise(0.0));
+    }
+}
@@ -1,6 +1,7 @@
 package finance_tracker.rs.service;
 
 import finance_tracker.rs.configuration.JwtUtil;
+import finance_tracker.rs.configuration.UserStatusCache;
 import finance_tracker.rs.model.User;
 import finance_tracker.rs.model.UserRole;
 import finance_tracker.rs.model.dto.AuthResponse;
@@ -12,7 +13,6 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -28,17 +28,32 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final UserStatusCache userStatusCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserStatusCache userStatusCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.userStatusCache = userStatusCache;
     }
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
+    // the id of username, if requestingUser may see their data: themselves, or anyone for an admin
+    public Long findVisibleUserId(String username, User requestingUser) {
+        if (requestingUser.getUsername().equals(username)) {
+            return requestingUser.getId();
+        }
+        if (!requestingUser.getRole().equals(UserRole.ROLE_ADMIN)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You can only see your own data");
+        }
+        return userRepository.findByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
     public User registerUser(UserDto userDto) {
         if (userDto.getUsername() == null || userDto.getUsername().isEmpty()) {
             throw new IllegalArgumentException("Username is required");
@@ -61,16 +76,14 @@ public class UserService {
         return userRepository.save(newUser);
     }
 
-    public User changePassword(String authorizationHeader, String oldPassword, String newPassword) {
-        String token = authorizationHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
-
-        User user = userRepository.findByUsername(username)
+    public User changePassword(User principal, String oldPassword, String newPassword) {
+        // the principal may be built from token claims and carry no password hash, so load it once here
+        User user = userRepository.findById(principal.getId())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(username, oldPassword));
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        if (oldPassword == null || !passwordEncoder.matches(oldPassword, user.getPassword())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid password");
+        }
 
         if (newPassword == null || newPassword.length() < 8) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Password must be at least 8 characters long");
@@ -80,26 +93,18 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public boolean deleteUser(String username, String authorization) {
-        if (authorization == null || !authorization.startsWith("Bearer ")) {
-            throw new SecurityException("Unauthorized - Missing or invalid token");
+    public boolean deleteUser(String username, User requestingUser) {
+        if (!requestingUser.getRole().equals(UserRole.ROLE_ADMIN) &&
+                !requestingUser.getUsername().equals(username)) {
+            throw new SecurityException("Forbidden - You don't have permission to delete this user");
         }
 
-        String token = authorization.substring(7);
-        String requestingUsername = jwtUtil.extractUsername(token);
-        User requestingUser = userRepository.findByUsername(requestingUsername)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
         User userToDelete = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User to delete not found"));
 
-        if (!requestingUser.getRole().equals(UserRole.ROLE_ADMIN) &&
-                !requestingUsername.equals(username)) {
-            throw new SecurityException("Forbidden - You don't have permission to delete this user");
-        }
-
         userRepository.delete(userToDelete);
-        return !userRepository.existsByUsername(username);
+        userStatusCache.evictAfterCommit(username);
+        return true;
     }
 
     public AuthResponse authenticate(UserDto userDto) {
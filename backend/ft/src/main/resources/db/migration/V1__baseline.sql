@@ -0,0 +1,98 @@
+-- The schema as hibernate's ddl-auto=update had built it when migrations took over. Databases that predate
+-- Flyway are baselined at version 0 (spring.flyway.baseline-on-migrate), so this runs on them too: every step
+-- is a no-op where its part already exists, and a database left by the original app (category as a string
+-- column on transactions, identity ids, no rollup) is brought up to date with its rows kept.
+
+CREATE TABLE IF NOT EXISTS users (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username     varchar(255)     NOT NULL CONSTRAINT uk_users_username UNIQUE,
+    password     varchar(255)     NOT NULL,
+    role         varchar(255)     NOT NULL CHECK (role IN ('ROLE_ADMIN', 'ROLE_CLIENT')),
+    enabled      boolean          NOT NULL,
+    balance      double precision NOT NULL,
+    data_version bigint           NOT NULL DEFAULT 0
+);
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS data_version bigint NOT NULL DEFAULT 0;
+
+-- the original app had the table but no transaction pointed at it, so nameless and repeated rows can go
+CREATE TABLE IF NOT EXISTS category (
+    id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar(255) NOT NULL CONSTRAINT uk_category_name UNIQUE
+);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'category'::regclass AND conname = 'uk_category_name') THEN
+        DELETE FROM category WHERE name IS NULL;
+        DELETE FROM category c USING category d WHERE c.name = d.name AND c.id > d.id;
+        ALTER TABLE category ALTER COLUMN name SET NOT NULL;
+        ALTER TABLE category ADD CONSTRAINT uk_category_name UNIQUE (name);
+    END IF;
+END
+$$;
+
+-- hibernate's pooled optimizer takes 50 ids per call
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id          bigint           PRIMARY KEY,
+    is_income   boolean          NOT NULL,
+    date        timestamp(6)     NOT NULL,
+    amount      double precision NOT NULL,
+    category_id bigint           NOT NULL CONSTRAINT fk_transactions_category REFERENCES category (id),
+    user_id     bigint           CONSTRAINT fk_transactions_user REFERENCES users (id)
+);
+
+-- the original transactions: ids from an identity column and the category name in each row
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'transactions' AND column_name = 'category') THEN
+        INSERT INTO category (name) SELECT DISTINCT category FROM transactions ON CONFLICT (name) DO NOTHING;
+        ALTER TABLE transactions ADD COLUMN category_id bigint;
+        UPDATE transactions t SET category_id = c.id FROM category c WHERE c.name = t.category;
+        ALTER TABLE transactions ALTER COLUMN category_id SET NOT NULL;
+        ALTER TABLE transactions DROP COLUMN category;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'transactions'::regclass AND contype = 'f'
+                   AND confrelid = 'category'::regclass) THEN
+        ALTER TABLE transactions ADD CONSTRAINT fk_transactions_category FOREIGN KEY (category_id) REFERENCES category (id);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'transactions'::regclass AND contype = 'f'
+                   AND confrelid = 'users'::regclass) THEN
+        ALTER TABLE transactions ADD CONSTRAINT fk_transactions_user FOREIGN KEY (user_id) REFERENCES users (id);
+    END IF;
+END
+$$;
+
+-- past the ids already taken; a pooled draw of n hands out n - 49 to n
+SELECT setval('transactions_seq', m)
+FROM (SELECT MAX(id) AS m FROM transactions) ids
+WHERE m > (SELECT last_value FROM transactions_seq);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_user_date_id ON transactions (user_id, date, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_amount_id ON transactions (user_id, amount, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_category_date_id ON transactions (user_id, category_id, date, id);
+
+CREATE TABLE IF NOT EXISTS monthly_rollup (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     bigint           NOT NULL,
+    category_id bigint           NOT NULL,
+    month       date             NOT NULL,
+    income_sum  double precision NOT NULL,
+    expense_sum double precision NOT NULL,
+    count       bigint           NOT NULL,
+    CONSTRAINT uk_monthly_rollup_user_category_month UNIQUE (user_id, category_id, month)
+);
+
+-- months of existing transactions; a month that already has its row was kept up to date by the app
+INSERT INTO monthly_rollup (user_id, category_id, month, income_sum, expense_sum, count)
+SELECT user_id, category_id, CAST(date_trunc('month', date) AS date),
+       COALESCE(SUM(amount) FILTER (WHERE is_income), 0), COALESCE(SUM(amount) FILTER (WHERE NOT is_income), 0), COUNT(*)
+FROM transactions
+WHERE user_id IS NOT NULL
+GROUP BY user_id, category_id, CAST(date_trunc('month', date) AS date)
+ON CONFLICT (user_id, category_id, month) DO NOTHING;
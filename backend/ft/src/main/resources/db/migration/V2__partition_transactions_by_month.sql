@@ -0,0 +1,98 @@
+-- transactions becomes a table partitioned by the month of date, one partition per month (transactions_YYYY_MM)
+-- plus a default partition for months that have none yet. A date range in a query only reads the months it
+-- covers. The primary key has to include the partition key, so it is (id, date); ids stay unique through
+-- transactions_seq.
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+ALTER TABLE transactions_unpartitioned RENAME CONSTRAINT transactions_pkey TO transactions_unpartitioned_pkey;
+
+CREATE TABLE transactions (
+    id          bigint           NOT NULL,
+    is_income   boolean          NOT NULL,
+    date        timestamp(6)     NOT NULL,
+    amount      double precision NOT NULL,
+    category_id bigint           NOT NULL,
+    user_id     bigint,
+    CONSTRAINT transactions_pkey PRIMARY KEY (id, date)
+) PARTITION BY RANGE (date);
+
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+-- Adds the partition for the month holding p_month if it is missing; rows of that month that landed in the
+-- default partition move into it. Writes to the default partition wait while this runs, which is short
+-- because the partition for the current and the coming months always exists (TransactionPartitionMaintenance).
+CREATE FUNCTION create_transactions_partition(p_month date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_from date := date_trunc('month', p_month);
+    v_to   date := date_trunc('month', p_month) + interval '1 month';
+    v_name text := 'transactions_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    LOCK TABLE transactions_default IN EXCLUSIVE MODE;
+    EXECUTE format('CREATE TABLE %I (LIKE transactions INCLUDING DEFAULTS)', v_name);
+    EXECUTE format('WITH moved AS (DELETE FROM transactions_default WHERE date >= %L AND date < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', v_from, v_to, v_name);
+    -- lets the attach skip its validation scan
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (date >= %L AND date < %L)',
+                   v_name, v_name || '_range', v_from, v_to);
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', v_name, v_name || '_range');
+    RETURN true;
+END
+$$;
+
+-- Detaches the partition of the month holding p_month and moves it to the archive schema, optionally into
+-- another tablespace. Its rows no longer show up in the app, balances and monthly_rollup keep counting them.
+-- Only the primary key is kept, the other indexes exist for the app's queries.
+CREATE SCHEMA archive;
+
+CREATE FUNCTION archive_transactions_partition(p_month date, p_tablespace text) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_name  text := 'transactions_' || to_char(p_month, 'YYYY_MM');
+    v_index text;
+BEGIN
+    IF to_regclass(v_name) IS NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('ALTER TABLE transactions DETACH PARTITION %I', v_name);
+    EXECUTE format('ALTER TABLE %I SET SCHEMA archive', v_name);
+    FOR v_index IN
+        SELECT i.relname FROM pg_index x
+        JOIN pg_class i ON i.oid = x.indexrelid
+        WHERE x.indrelid = format('archive.%I', v_name)::regclass AND NOT x.indisprimary
+    LOOP
+        EXECUTE format('DROP INDEX archive.%I', v_index);
+    END LOOP;
+    IF p_tablespace IS NOT NULL AND p_tablespace <> '' THEN
+        EXECUTE format('ALTER TABLE archive.%I SET TABLESPACE %I', v_name, p_tablespace);
+    END IF;
+    RETURN true;
+END
+$$;
+
+-- a partition for every month that has rows, and for the next three
+SELECT create_transactions_partition(m)
+FROM (SELECT DISTINCT CAST(date_trunc('month', date) AS date) AS m FROM transactions_unpartitioned
+      UNION
+      SELECT CAST(date_trunc('month', now()) + n * interval '1 month' AS date) FROM generate_series(0, 3) AS n) months;
+
+INSERT INTO transactions (id, is_income, date, amount, category_id, user_id)
+SELECT id, is_income, date, amount, category_id, user_id FROM transactions_unpartitioned;
+
+DROP TABLE transactions_unpartitioned;
+
+-- built after the copy, and created on the partitioned table so every partition, present and future, gets them
+CREATE INDEX idx_transactions_user_date_id ON transactions (user_id, date, id);
+CREATE INDEX idx_transactions_user_amount_id ON transactions (user_id, amount, id);
+CREATE INDEX idx_transactions_user_category_date_id ON transactions (user_id, category_id, date, id);
+
+ALTER TABLE transactions ADD CONSTRAINT fk_transactions_category FOREIGN KEY (category_id) REFERENCES category (id);
+ALTER TABLE transactions ADD CONSTRAINT fk_transactions_user FOREIGN KEY (user_id) REFERENCES users (id);
+
+ANALYZE transactions;
@@ -0,0 +1,16 @@
+-- balance of each user at the end of every month that has transactions; months without a row carry the
+-- previous one forward. Kept up to date together with monthly_rollup, see BalanceCheckpointRepository.
+CREATE TABLE balance_checkpoint (
+    id      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint           NOT NULL,
+    month   date             NOT NULL,
+    balance double precision NOT NULL,
+    CONSTRAINT uk_balance_checkpoint_user_month UNIQUE (user_id, month)
+);
+
+INSERT INTO balance_checkpoint (user_id, month, balance)
+SELECT user_id, month, SUM(SUM(income_sum - expense_sum)) OVER (PARTITION BY user_id ORDER BY month)
+FROM monthly_rollup
+GROUP BY user_id, month;
+
+ANALYZE balance_checkpoint;
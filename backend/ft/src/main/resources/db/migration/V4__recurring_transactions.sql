@@ -0,0 +1,20 @@
+-- rules that RecurringTransactionScheduler turns into transactions: occurrence n (from 0) falls on
+-- start_date plus n times the interval, and next_run is occurrence number occurrences, or null once the
+-- rule is past its end_date
+CREATE TABLE recurring_transaction (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      bigint           NOT NULL CONSTRAINT fk_recurring_transaction_user REFERENCES users (id) ON DELETE CASCADE,
+    category_id  bigint           NOT NULL CONSTRAINT fk_recurring_transaction_category REFERENCES category (id),
+    is_income    boolean          NOT NULL,
+    amount       double precision NOT NULL,
+    frequency    varchar(16)      NOT NULL CHECK (frequency IN ('DAILY', 'WEEKLY', 'MONTHLY', 'YEARLY')),
+    repeat_every integer          NOT NULL CHECK (repeat_every > 0),
+    start_date   timestamp(6)     NOT NULL,
+    end_date     date,
+    occurrences  bigint           NOT NULL DEFAULT 0,
+    next_run     timestamp(6)
+);
+
+CREATE INDEX idx_recurring_transaction_user ON recurring_transaction (user_id, id);
+-- the scheduler's claim only looks at rules that are due
+CREATE INDEX idx_recurring_transaction_next_run ON recurring_transaction (next_run) WHERE next_run IS NOT NULL;
@@ -0,0 +1,53 @@
+-- net amount of each user's transactions in archived partitions, which no longer show up in transactions.
+-- A partition's sums are added in the transaction that detaches it, so any statement sees either the partition
+-- or its sums, never both or neither; balance reconciliation adds them to what it finds in transactions.
+CREATE TABLE archived_balance (
+    user_id bigint           NOT NULL PRIMARY KEY CONSTRAINT fk_archived_balance_user REFERENCES users (id) ON DELETE CASCADE,
+    net     double precision NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION archive_transactions_partition(p_month date, p_tablespace text) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_name  text := 'transactions_' || to_char(p_month, 'YYYY_MM');
+    v_index text;
+BEGIN
+    IF to_regclass(v_name) IS NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('ALTER TABLE transactions DETACH PARTITION %I', v_name);
+    EXECUTE format('ALTER TABLE %I SET SCHEMA archive', v_name);
+    EXECUTE format('INSERT INTO archived_balance (user_id, net) '
+                   'SELECT user_id, SUM(CASE WHEN is_income THEN amount ELSE -amount END) FROM archive.%I '
+                   'WHERE user_id IS NOT NULL GROUP BY user_id '
+                   'ON CONFLICT (user_id) DO UPDATE SET net = archived_balance.net + EXCLUDED.net', v_name);
+    FOR v_index IN
+        SELECT i.relname FROM pg_index x
+        JOIN pg_class i ON i.oid = x.indexrelid
+        WHERE x.indrelid = format('archive.%I', v_name)::regclass AND NOT x.indisprimary
+    LOOP
+        EXECUTE format('DROP INDEX archive.%I', v_index);
+    END LOOP;
+    IF p_tablespace IS NOT NULL AND p_tablespace <> '' THEN
+        EXECUTE format('ALTER TABLE archive.%I SET TABLESPACE %I', v_name, p_tablespace);
+    END IF;
+    RETURN true;
+END
+$$;
+
+-- months archived before this migration
+DO $$
+DECLARE
+    v_name text;
+BEGIN
+    FOR v_name IN
+        SELECT tablename FROM pg_tables WHERE schemaname = 'archive' AND tablename ~ '^transactions_[0-9]{4}_[0-9]{2}$'
+    LOOP
+        EXECUTE format('INSERT INTO archived_balance (user_id, net) '
+                       'SELECT user_id, SUM(CASE WHEN is_income THEN amount ELSE -amount END) FROM archive.%I '
+                       'WHERE user_id IS NOT NULL GROUP BY user_id '
+                       'ON CONFLICT (user_id) DO UPDATE SET net = archived_balance.net + EXCLUDED.net', v_name);
+    END LOOP;
+END
+$$;
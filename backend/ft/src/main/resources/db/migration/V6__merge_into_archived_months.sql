@@ -0,0 +1,74 @@
+-- A row dated in an archived month lands in the default partition. A new partition for that month would collide
+-- with the archived one when it is archived in turn, so such rows join the archived table instead, and their sums
+-- go to archived_balance in the same statement, as a detach does.
+
+CREATE OR REPLACE FUNCTION create_transactions_partition(p_month date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_from date := date_trunc('month', p_month);
+    v_to   date := date_trunc('month', p_month) + interval '1 month';
+    v_name text := 'transactions_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    LOCK TABLE transactions_default IN EXCLUSIVE MODE;
+    IF to_regclass(format('archive.%I', v_name)) IS NOT NULL THEN
+        EXECUTE format('WITH moved AS (DELETE FROM transactions_default WHERE date >= %L AND date < %L RETURNING *), '
+                       'archived AS (INSERT INTO archive.%I SELECT * FROM moved) '
+                       'INSERT INTO archived_balance (user_id, net) '
+                       'SELECT user_id, SUM(CASE WHEN is_income THEN amount ELSE -amount END) FROM moved '
+                       'WHERE user_id IS NOT NULL GROUP BY user_id '
+                       'ON CONFLICT (user_id) DO UPDATE SET net = archived_balance.net + EXCLUDED.net', v_from, v_to, v_name);
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE transactions INCLUDING DEFAULTS)', v_name);
+    EXECUTE format('WITH moved AS (DELETE FROM transactions_default WHERE date >= %L AND date < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', v_from, v_to, v_name);
+    -- lets the attach skip its validation scan
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (date >= %L AND date < %L)',
+                   v_name, v_name || '_range', v_from, v_to);
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', v_name, v_name || '_range');
+    RETURN true;
+END
+$$;
+
+-- a partition made for a month that was already archived, before the function above, is merged into the archived one
+CREATE OR REPLACE FUNCTION archive_transactions_partition(p_month date, p_tablespace text) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_name  text := 'transactions_' || to_char(p_month, 'YYYY_MM');
+    v_index text;
+BEGIN
+    IF to_regclass(v_name) IS NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('ALTER TABLE transactions DETACH PARTITION %I', v_name);
+    EXECUTE format('INSERT INTO archived_balance (user_id, net) '
+                   'SELECT user_id, SUM(CASE WHEN is_income THEN amount ELSE -amount END) FROM %I '
+                   'WHERE user_id IS NOT NULL GROUP BY user_id '
+                   'ON CONFLICT (user_id) DO UPDATE SET net = archived_balance.net + EXCLUDED.net', v_name);
+    IF to_regclass(format('archive.%I', v_name)) IS NOT NULL THEN
+        EXECUTE format('INSERT INTO archive.%I SELECT * FROM %I', v_name, v_name);
+        EXECUTE format('DROP TABLE %I', v_name);
+        RETURN true;
+    END IF;
+
+    EXECUTE format('ALTER TABLE %I SET SCHEMA archive', v_name);
+    FOR v_index IN
+        SELECT i.relname FROM pg_index x
+        JOIN pg_class i ON i.oid = x.indexrelid
+        WHERE x.indrelid = format('archive.%I', v_name)::regclass AND NOT x.indisprimary
+    LOOP
+        EXECUTE format('DROP INDEX archive.%I', v_index);
+    END LOOP;
+    IF p_tablespace IS NOT NULL AND p_tablespace <> '' THEN
+        EXECUTE format('ALTER TABLE archive.%I SET TABLESPACE %I', v_name, p_tablespace);
+    END IF;
+    RETURN true;
+END
+$$;
@@ -0,0 +1,47 @@
+package finance_tracker.rs.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+		"datasource.limiter.enabled=true",
+		"datasource.limiter.max-concurrent=2",
+		"datasource.limiter.acquire-timeout-ms=200"
+})
+class ConnectionLimitingDataSourceTests {
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void holdsAPermitUntilTheConnectionIsClosed() throws Exception {
+		assertInstanceOf(ConnectionLimitingDataSource.class, dataSource);
+
+		Connection held = dataSource.getConnection();
+		try (Connection second = dataSource.getConnection()) {
+			assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+		}
+		// a second close must not hand back a second permit
+		held.close();
+		held.close();
+
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+		try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+			assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+		}
+		try (Connection again = dataSource.getConnection()) {
+			assertEquals(true, again.isValid(1));
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package finance_tracker.rs.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finance_tracker.rs.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"rate-limit.capacity=5",
+		"rate-limit.refill-per-second=0.01",
+		"rate-limit.login.capacity=2",
+		"rate-limit.login.refill-per-minute=0.1"
+})
+@AutoConfigureMockMvc
+class RateLimitFilterTests {
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private UserRepository userRepository;
+
+	private final String username = "rate-limit-" + UUID.randomUUID();
+
+	@AfterEach
+	void deleteUser() {
+		userRepository.findByUsername(username).ifPresent(userRepository::delete);
+	}
+
+	@Test
+	void chargesBigPagesMoreAndSaysWhenToRetry() throws Exception {
+		String credentials = "{\"username\":\"" + username + "\",\"password\":\"password123\"}";
+		mockMvc.perform(post("/users/register").contentType(MediaType.APPLICATION_JSON).content(credentials))
+				.andExpect(status().isCreated());
+		String body = mockMvc.perform(post("/users/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String jwt = objectMapper.readTree(body).get("jwt").asText();
+
+		// register and login emptied this address's login bucket
+		mockMvc.perform(post("/users/login").contentType(MediaType.APPLICATION_JSON).content(credentials))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().exists("Retry-After"));
+
+		// a page of 250 rows costs 3 of the user's 5 tokens
+		mockMvc.perform(get("/transactions").param("size", "250").header("Authorization", "Bearer " + jwt))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/transactions").param("size", "250").header("Authorization", "Bearer " + jwt))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "100"));
+		mockMvc.perform(get("/transactions").header("Authorization", "Bearer " + jwt))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,68 @@
+package finance_tracker.rs.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// The "replica" is the primary's database under another application name, so the test can tell the pools
+// apart with one Postgres; point datasource.replica.urls at a real standby to run it against two.
+@SpringBootTest(properties = "datasource.replica.urls=jdbc:postgresql://localhost:5432/baza?ApplicationName=" + ReplicaRoutingTests.REPLICA)
+class ReplicaRoutingTests {
+	static final String REPLICA = "replica-routing-test";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private ReadYourWrites readYourWrites;
+
+	@AfterEach
+	void unbind() {
+		readYourWrites.unbind();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		assertEquals(REPLICA, applicationName(true));
+	}
+
+	@Test
+	void writesAndReadsOutsideATransactionGoToThePrimary() {
+		assertNotEquals(REPLICA, applicationName(false));
+		assertNotEquals(REPLICA, jdbcTemplate.queryForObject("SHOW application_name", String.class));
+	}
+
+	@Test
+	void aUserWhoJustWroteReadsFromThePrimary() {
+		String username = "routing-" + UUID.randomUUID();
+		readYourWrites.bind(username);
+		assertEquals(REPLICA, applicationName(true));
+
+		readYourWrites.recordWrite(username);
+		assertNotEquals(REPLICA, applicationName(true));
+
+		readYourWrites.bind("someone-else");
+		assertEquals(REPLICA, applicationName(true));
+	}
+
+	@Test
+	void onPrimaryOverridesReadOnly() {
+		assertNotEquals(REPLICA, readYourWrites.onPrimary(() -> applicationName(true)));
+	}
+
+	private String applicationName(boolean readOnly) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setReadOnly(readOnly);
+		return template.execute(status -> jdbcTemplate.queryForObject("SHOW application_name", String.class));
+	}
+}
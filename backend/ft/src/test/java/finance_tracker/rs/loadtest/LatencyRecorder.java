@@ -0,0 +1,94 @@
+package finance_tracker.rs.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram for one scenario: microsecond buckets that grow by ~5%, so percentiles
+// are off by at most a few percent at any scale while recording stays a single array increment.
+class LatencyRecorder {
+    private static final double GROWTH = 1.05;
+    private static final int BUCKETS = 400;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder errors = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0);
+
+    void record(long micros, int status) {
+        counts.incrementAndGet(bucket(micros));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status >= 400 || status == 0) {
+            errors.increment();
+        }
+        maxMicros.accumulate(micros);
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    long maxMicros() {
+        return maxMicros.get();
+    }
+
+    Map<Integer, Long> statuses() {
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        statuses.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> result.put(e.getKey(), e.getValue().sum()));
+        return result;
+    }
+
+    // upper bound of the bucket the given fraction of requests falls into
+    long percentileMicros(double fraction) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), maxMicros());
+            }
+        }
+        return maxMicros();
+    }
+
+    // non-empty buckets as "upper bound in micros" -> count
+    Map<Long, Long> histogram() {
+        Map<Long, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                result.put(upperBound(i), count);
+            }
+        }
+        return result;
+    }
+
+    private static int bucket(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(Math.log(micros) / Math.log(GROWTH));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(GROWTH, bucket));
+    }
+}
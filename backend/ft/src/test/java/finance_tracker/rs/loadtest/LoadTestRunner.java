@@ -0,0 +1,240 @@
+package finance_tracker.rs.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Closed-loop mixed workload against a running app, using the users seeded by SyntheticDataGenerator.
+// Each worker logs in as one user and then loops over the mix until the time is up; the warmup is not recorded.
+// All workers share one address, so start the app with --rate-limit.enabled=false unless measuring the limiter.
+//
+//   mvn test-compile exec:java@loadtest -Dloadtest.concurrency=32 -Dloadtest.duration-seconds=120 -Dloadtest.label=$(git rev-parse --short HEAD)
+//
+// Properties: loadtest.base-url, loadtest.users, loadtest.concurrency, loadtest.warmup-seconds, loadtest.duration-seconds,
+// loadtest.mix (weights, default list=70,create=25,login=5), loadtest.label, loadtest.report-dir.
+// Prints a summary and writes the full report with histograms to <report-dir>/<label>-<time>.json.
+public class LoadTestRunner {
+    private static final List<String> SORT_KEYS = List.of("date", "amount");
+    private static final List<String> CATEGORIES = List.of("Groceries", "Rent", "Transport", "Restaurants", "Salary");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final int users;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+
+    private volatile Map<String, LatencyRecorder> recorders;
+
+    LoadTestRunner(String baseUrl, int users, Map<String, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.base-url", "http://localhost:8080");
+        int users = Integer.getInteger("loadtest.users", 100);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+        String label = System.getProperty("loadtest.label", "local");
+        Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "target/loadtest"));
+
+        LoadTestRunner loadTest = new LoadTestRunner(baseUrl, users, parseMix(System.getProperty("loadtest.mix", "list=70,create=25,login=5")));
+        Map<String, Object> report = loadTest.run(concurrency, warmupSeconds, durationSeconds);
+        report.put("label", label);
+        report.put("baseUrl", baseUrl);
+
+        Files.createDirectories(reportDir);
+        Path file = reportDir.resolve(label + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        loadTest.objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("Report written to " + file);
+    }
+
+    Map<String, Object> run(int concurrency, int warmupSeconds, int durationSeconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        recorders = newRecorders();
+        long stopAt = System.nanoTime() + (warmupSeconds + durationSeconds) * 1_000_000_000L;
+
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                String username = SyntheticDataGenerator.USERNAME_PREFIX + (i % users);
+                workers.add(pool.submit(() -> {
+                    worker(username, stopAt);
+                    return null;
+                }));
+            }
+
+            Thread.sleep(warmupSeconds * 1000L);
+            recorders = newRecorders();
+            long measuredFrom = System.nanoTime();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            double seconds = (System.nanoTime() - measuredFrom) / 1e9;
+
+            return report(concurrency, seconds);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void worker(String username, long stopAt) throws Exception {
+        String token = null;
+        // many workers logging in at once can be turned away by the bounded password hasher, keep trying
+        while (token == null) {
+            HttpResponse<String> response = login(username);
+            if (response.statusCode() == 200) {
+                token = token(response);
+            } else if (response.statusCode() == 429) {
+                Thread.sleep(100);
+            } else {
+                throw new IllegalStateException("Login as " + username + " failed with " + response.statusCode() + ", run exec:java@seed first");
+            }
+        }
+        while (System.nanoTime() < stopAt) {
+            String scenario = pick();
+            long started = System.nanoTime();
+            int status;
+            try {
+                if (scenario.equals("login")) {
+                    HttpResponse<String> response = login(username);
+                    status = response.statusCode();
+                    if (status == 200) {
+                        token = token(response);
+                    }
+                } else {
+                    status = client.send(request(scenario, token), HttpResponse.BodyHandlers.discarding()).statusCode();
+                }
+            } catch (IOException e) {
+                status = 0;
+            }
+            recorders.get(scenario).record((System.nanoTime() - started) / 1000, status);
+        }
+    }
+
+    private HttpRequest request(String scenario, String token) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest.Builder builder = HttpRequest.newBuilder().header("Authorization", "Bearer " + token);
+
+        if (scenario.equals("create")) {
+            boolean income = random.nextInt(7) == 0;
+            String body = "{\"isIncome\":" + income
+                    + ",\"date\":\"" + LocalDateTime.now().withNano(0)
+                    + "\",\"amount\":" + (Math.round(random.nextDouble(2, 200) * 100) / 100.0)
+                    + ",\"category\":\"" + CATEGORIES.get(random.nextInt(CATEGORIES.size())) + "\"}";
+            return builder.uri(URI.create(baseUrl + "/transactions"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        String query = "page=" + random.nextInt(5) + "&size=20&sortBy=" + SORT_KEYS.get(random.nextInt(SORT_KEYS.size()))
+                + "&sortDirection=" + (random.nextBoolean() ? "desc" : "asc");
+        return builder.uri(URI.create(baseUrl + "/transactions?" + query)).GET().build();
+    }
+
+    private HttpResponse<String> login(String username) throws IOException, InterruptedException {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + SyntheticDataGenerator.PASSWORD + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String token(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body()).get("jwt").asText();
+    }
+
+    private String pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private Map<String, LatencyRecorder> newRecorders() {
+        Map<String, LatencyRecorder> result = new LinkedHashMap<>();
+        mix.keySet().forEach(scenario -> result.put(scenario, new LatencyRecorder()));
+        return result;
+    }
+
+    private Map<String, Object> report(int concurrency, double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", seconds);
+        report.put("mix", mix);
+
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        long total = 0;
+        System.out.printf("%-8s %9s %8s %9s %9s %9s %9s %9s%n", "scenario", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            long count = recorder.count();
+            total += count;
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", count);
+            stats.put("errors", recorder.errors());
+            stats.put("throughput", count / seconds);
+            stats.put("p50Micros", recorder.percentileMicros(0.50));
+            stats.put("p90Micros", recorder.percentileMicros(0.90));
+            stats.put("p99Micros", recorder.percentileMicros(0.99));
+            stats.put("p999Micros", recorder.percentileMicros(0.999));
+            stats.put("maxMicros", recorder.maxMicros());
+            stats.put("statuses", recorder.statuses());
+            stats.put("histogramMicros", recorder.histogram());
+            scenarios.put(entry.getKey(), stats);
+
+            System.out.printf("%-8s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), count, recorder.errors(), count / seconds,
+                    recorder.percentileMicros(0.50) / 1000.0, recorder.percentileMicros(0.90) / 1000.0,
+                    recorder.percentileMicros(0.99) / 1000.0, recorder.maxMicros() / 1000.0);
+        }
+        System.out.printf("total    %9d %8s %9.1f%n", total, "", total / seconds);
+
+        report.put("throughput", total / seconds);
+        report.put("scenarios", scenarios);
+        return report;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (!List.of("list", "create", "login").contains(kv[0])) {
+                throw new IllegalArgumentException("Unknown scenario " + kv[0] + ", expected list, create or login");
+            }
+            result.put(kv[0], Integer.parseInt(kv[1]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,202 @@
+package finance_tracker.rs.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Seeds loadtest-0 .. loadtest-(N-1), each with M transactions, straight into Postgres with COPY.
+// Users from an earlier run are removed first, and the same seed always produces the same rows.
+//
+//   mvn test-compile exec:java@seed -Dloadtest.users=1000 -Dloadtest.transactions-per-user=2000
+//
+// Connection: -Dloadtest.jdbc-url, -Dloadtest.jdbc-user, -Dloadtest.jdbc-password (defaults match application.properties).
+public class SyntheticDataGenerator {
+    static final String USERNAME_PREFIX = "loadtest-";
+    static final String PASSWORD = "loadtest-password";
+
+    private static final String[] INCOME_CATEGORIES = {"Salary", "Freelance", "Gift", "Interest"};
+    private static final String[] EXPENSE_CATEGORIES = {"Groceries", "Rent", "Transport", "Restaurants", "Utilities",
+            "Entertainment", "Health", "Clothing", "Travel", "Education", "Subscriptions", "Insurance"};
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 100);
+        int perUser = Integer.getInteger("loadtest.transactions-per-user", 1000);
+        long seed = Long.getLong("loadtest.seed", 42L);
+        int months = Integer.getInteger("loadtest.months", 24);
+
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            long started = System.nanoTime();
+
+            deleteUsers(connection);
+            List<Long> userIds = copyUsers(connection, users);
+            long rows = copyTransactions(connection, userIds, perUser, months, new Random(seed));
+            updateBalancesAndRollup(connection);
+            connection.commit();
+
+            try (Statement statement = connection.createStatement()) {
+                connection.setAutoCommit(true);
+                statement.execute("ANALYZE transactions");
+                statement.execute("ANALYZE users");
+            }
+
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("Seeded %d users and %d transactions in %.1fs (%.0f rows/s)%n",
+                    users, rows, seconds, rows / seconds);
+        }
+    }
+
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("loadtest.jdbc-url", "jdbc:postgresql://localhost:5432/baza"),
+                System.getProperty("loadtest.jdbc-user", "ana"),
+                System.getProperty("loadtest.jdbc-password", "1234"));
+    }
+
+    private static void deleteUsers(Connection connection) throws SQLException {
+        String users = "(SELECT id FROM users WHERE username LIKE '" + USERNAME_PREFIX + "%')";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM monthly_rollup WHERE user_id IN " + users);
+            statement.executeUpdate("DELETE FROM balance_checkpoint WHERE user_id IN " + users);
+            statement.executeUpdate("DELETE FROM transactions WHERE user_id IN " + users);
+            statement.executeUpdate("DELETE FROM users WHERE username LIKE '" + USERNAME_PREFIX + "%'");
+        }
+    }
+
+    private static List<Long> copyUsers(Connection connection, int users) throws SQLException, IOException {
+        // one hash for everyone, hashing a million passwords would take longer than the rest of the seed
+        String hash = new BCryptPasswordEncoder().encode(PASSWORD);
+
+        try (Writer out = copy(connection, "COPY users (username, password, role, enabled, balance) FROM STDIN")) {
+            for (int i = 0; i < users; i++) {
+                out.write(USERNAME_PREFIX + i + "\t" + hash + "\tROLE_CLIENT\tt\t0\n");
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(users);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM users WHERE username LIKE ? ORDER BY id")) {
+            statement.setString(1, USERNAME_PREFIX + "%");
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static long copyTransactions(Connection connection, List<Long> userIds, int perUser, int months, Random random)
+            throws SQLException, IOException {
+        long total = (long) userIds.size() * perUser;
+        long firstId = reserveIds(connection, total);
+        Map<String, Long> categoryIds = insertCategories(connection);
+
+        LocalDateTime end = LocalDateTime.now().withNano(0);
+        long spanSeconds = months * 30L * 24 * 3600;
+        createPartitions(connection, end.minusSeconds(spanSeconds), end);
+        long id = firstId;
+
+        try (Writer out = copy(connection, "COPY transactions (id, is_income, date, amount, category_id, user_id) FROM STDIN")) {
+            for (Long userId : userIds) {
+                for (int i = 0; i < perUser; i++) {
+                    // roughly one income for every six expenses, incomes are larger
+                    boolean income = random.nextInt(7) == 0;
+                    String category = income
+                            ? INCOME_CATEGORIES[random.nextInt(INCOME_CATEGORIES.length)]
+                            : EXPENSE_CATEGORIES[random.nextInt(EXPENSE_CATEGORIES.length)];
+                    double amount = Math.round((income ? 200 + random.nextDouble() * 2000 : 2 + random.nextDouble() * 150) * 100) / 100.0;
+                    LocalDateTime date = end.minusSeconds((long) (random.nextDouble() * spanSeconds));
+
+                    out.write(id++ + "\t" + (income ? "t" : "f") + "\t" + date + "\t" + amount + "\t" + categoryIds.get(category) + "\t" + userId + "\n");
+                }
+            }
+        }
+        return total;
+    }
+
+    // one partition per month up front, so COPY does not pile everything into transactions_default
+    private static void createPartitions(Connection connection, LocalDateTime from, LocalDateTime to) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT create_transactions_partition(?)")) {
+            for (LocalDate month = from.toLocalDate().withDayOfMonth(1); !month.isAfter(to.toLocalDate()); month = month.plusMonths(1)) {
+                statement.setObject(1, month);
+                statement.execute();
+            }
+        }
+    }
+
+    private static Map<String, Long> insertCategories(Connection connection) throws SQLException {
+        Map<String, Long> ids = new HashMap<>();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO category (name) VALUES (?) ON CONFLICT (name) DO NOTHING");
+             PreparedStatement select = connection.prepareStatement("SELECT id FROM category WHERE name = ?")) {
+            for (String name : Stream.concat(Arrays.stream(INCOME_CATEGORIES), Arrays.stream(EXPENSE_CATEGORIES)).toList()) {
+                insert.setString(1, name);
+                insert.executeUpdate();
+                select.setString(1, name);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    ids.put(name, rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    // takes a block of ids from transactions_seq and moves it past the block, so the app never hands out one of them
+    private static long reserveIds(Connection connection, long count) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT nextval('transactions_seq')")) {
+            rs.next();
+            long current = rs.getLong(1);
+            // hibernate's pooled optimizer uses the 50 ids below each value it reads
+            statement.execute("SELECT setval('transactions_seq', " + (current + count + 50) + ")");
+            return current + 1;
+        }
+    }
+
+    private static void updateBalancesAndRollup(Connection connection) throws SQLException {
+        String users = "(SELECT id FROM users WHERE username LIKE '" + USERNAME_PREFIX + "%')";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE users u SET balance = t.balance " +
+                    "FROM (SELECT user_id, SUM(CASE WHEN is_income THEN amount ELSE -amount END) AS balance " +
+                    "FROM transactions WHERE user_id IN " + users + " GROUP BY user_id) t " +
+                    "WHERE u.id = t.user_id");
+            statement.executeUpdate("INSERT INTO monthly_rollup (user_id, category_id, month, income_sum, expense_sum, count) " +
+                    "SELECT user_id, category_id, CAST(date_trunc('month', date) AS date), " +
+                    "SUM(CASE WHEN is_income THEN amount ELSE 0 END), " +
+                    "SUM(CASE WHEN is_income THEN 0 ELSE amount END), " +
+                    "COUNT(*) " +
+                    "FROM transactions WHERE user_id IN " + users + " GROUP BY 1, 2, 3");
+            statement.executeUpdate("INSERT INTO balance_checkpoint (user_id, month, balance) " +
+                    "SELECT user_id, month, SUM(SUM(income_sum - expense_sum)) OVER (PARTITION BY user_id ORDER BY month) " +
+                    "FROM monthly_rollup WHERE user_id IN " + users + " GROUP BY user_id, month");
+        }
+    }
+
+    private static Writer copy(Connection connection, String sql) throws SQLException {
+        PGCopyOutputStream stream = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, 1 << 16);
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16);
+    }
+}
@@ -0,0 +1,95 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.BalancePoint;
+import finance_tracker.rs.model.dto.TransactionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class BalanceHistoryServiceTests extends UserFixture {
+	@Autowired
+	private BalanceHistoryService balanceHistoryService;
+	@Autowired
+	private TransactionService transactionService;
+
+	BalanceHistoryServiceTests() {
+		super("history");
+	}
+
+	// nothing in February; April's only transaction is on the 3rd
+	@BeforeEach
+	void createTransactions() {
+		create(true, 100.0, LocalDateTime.of(2026, 1, 10, 12, 0));
+		create(false, 30.0, LocalDateTime.of(2026, 1, 20, 23, 59));
+		create(true, 50.0, LocalDateTime.of(2026, 3, 5, 0, 0));
+		create(false, 20.0, LocalDateTime.of(2026, 4, 3, 8, 0));
+	}
+
+	@Test
+	void balanceOnADate() {
+		assertEquals(0.0, balanceOn(LocalDate.of(2025, 12, 31)), 1e-9);
+		assertEquals(100.0, balanceOn(LocalDate.of(2026, 1, 10)), 1e-9);
+		assertEquals(70.0, balanceOn(LocalDate.of(2026, 2, 15)), 1e-9);
+		assertEquals(120.0, balanceOn(LocalDate.of(2026, 4, 2)), 1e-9);
+		assertEquals(100.0, balanceOn(LocalDate.of(2026, 4, 3)), 1e-9);
+		assertEquals(100.0, balanceOn(LocalDate.of(2027, 1, 1)), 1e-9);
+	}
+
+	@Test
+	void dailyStartsMidMonth() {
+		assertEquals(List.of(
+				new BalancePoint(LocalDate.of(2026, 1, 19), 100.0),
+				new BalancePoint(LocalDate.of(2026, 1, 20), 70.0),
+				new BalancePoint(LocalDate.of(2026, 1, 21), 70.0)),
+				balanceHistoryService.daily(user.getId(), LocalDate.of(2026, 1, 19), LocalDate.of(2026, 1, 21)));
+	}
+
+	@Test
+	void monthlyCarriesEmptyMonthsAndEndsOnTo() {
+		assertEquals(List.of(
+				new BalancePoint(LocalDate.of(2026, 1, 31), 70.0),
+				new BalancePoint(LocalDate.of(2026, 2, 28), 70.0),
+				new BalancePoint(LocalDate.of(2026, 3, 31), 120.0),
+				new BalancePoint(LocalDate.of(2026, 4, 2), 120.0)),
+				balanceHistoryService.monthly(user.getId(), LocalDate.of(2026, 1, 15), LocalDate.of(2026, 4, 2)));
+		assertEquals(List.of(
+				new BalancePoint(LocalDate.of(2026, 2, 28), 70.0),
+				new BalancePoint(LocalDate.of(2026, 3, 31), 120.0),
+				new BalancePoint(LocalDate.of(2026, 4, 30), 100.0)),
+				balanceHistoryService.monthly(user.getId(), LocalDate.of(2026, 2, 1), LocalDate.of(2026, 4, 30)));
+	}
+
+	@Test
+	void limitsTheNumberOfPoints() {
+		LocalDate from = LocalDate.of(2026, 1, 1);
+		assertEquals(BalanceHistoryService.MAX_DAYS,
+				balanceHistoryService.daily(user.getId(), from, from.plusDays(BalanceHistoryService.MAX_DAYS - 1)).size());
+		assertThrows(ResponseStatusException.class,
+				() -> balanceHistoryService.daily(user.getId(), from, from.plusDays(BalanceHistoryService.MAX_DAYS)));
+
+		assertEquals(BalanceHistoryService.MAX_MONTHS,
+				balanceHistoryService.monthly(user.getId(), from, from.plusMonths(BalanceHistoryService.MAX_MONTHS - 1)).size());
+		assertThrows(ResponseStatusException.class,
+				() -> balanceHistoryService.monthly(user.getId(), from, from.plusMonths(BalanceHistoryService.MAX_MONTHS)));
+		assertThrows(ResponseStatusException.class,
+				() -> balanceHistoryService.daily(user.getId(), from, from.minusDays(1)));
+	}
+
+	private double balanceOn(LocalDate date) {
+		return balanceHistoryService.balanceOn(user.getId(), date).balance();
+	}
+
+	private void create(boolean income, double amount, LocalDateTime date) {
+		transactionService.createTransaction(new TransactionDto(income, date, amount, "history"), user);
+	}
+}
@@ -0,0 +1,93 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.TransactionDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BalanceReconciliationServiceTests extends UserFixture {
+	@Autowired
+	private BalanceReconciliationService balanceReconciliationService;
+	@Autowired
+	private TransactionService transactionService;
+
+	BalanceReconciliationServiceTests() {
+		super("reconciliation");
+	}
+
+	@Test
+	void reportsAndRepairsADriftedBalance() {
+		transactionService.createTransaction(new TransactionDto(true, LocalDateTime.now(), 100.0, "reconciliation"), user);
+		transactionService.createTransaction(new TransactionDto(false, LocalDateTime.now(), 30.0, "reconciliation"), user);
+		assertTrue(balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), false).isEmpty());
+
+		jdbcTemplate.update("UPDATE users SET balance = balance - 12.5 WHERE id = ?", user.getId());
+
+		List<BalanceReconciliationService.Drift> found = balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), false);
+		assertEquals(1, found.size());
+		assertEquals(12.5, found.get(0).drift(), 1e-9);
+		assertEquals(57.5, balance(), 1e-9);
+
+		assertEquals(1, balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), true).size());
+		assertEquals(70.0, balance(), 1e-9);
+		assertTrue(balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), false).isEmpty());
+	}
+
+	// a month nobody else has, so archiving it only moves this user's row
+	@Test
+	void countsArchivedMonths() {
+		transactionService.createTransaction(new TransactionDto(true, LocalDateTime.of(1990, 1, 15, 12, 0), 100.0, "reconciliation"), user);
+		transactionService.createTransaction(new TransactionDto(false, LocalDateTime.now(), 30.0, "reconciliation"), user);
+		jdbcTemplate.queryForObject("SELECT create_transactions_partition('1990-01-01')", Boolean.class);
+		try {
+			jdbcTemplate.queryForObject("SELECT archive_transactions_partition('1990-01-01', NULL)", Boolean.class);
+			assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?", Integer.class, user.getId()));
+
+			assertTrue(balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), false).isEmpty());
+			jdbcTemplate.update("UPDATE users SET balance = balance + 1 WHERE id = ?", user.getId());
+			assertEquals(-1.0, balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), true).get(0).drift(), 1e-9);
+			assertEquals(70.0, balance(), 1e-9);
+		} finally {
+			jdbcTemplate.execute("DROP TABLE IF EXISTS archive.transactions_1990_01");
+			jdbcTemplate.execute("DROP TABLE IF EXISTS transactions_1990_01");
+		}
+	}
+
+	// rows dated in an archived month join the archived table instead of bringing the month back
+	@Test
+	void mergesBackdatedRowsIntoAnArchivedMonth() {
+		transactionService.createTransaction(new TransactionDto(true, LocalDateTime.of(1990, 2, 15, 12, 0), 100.0, "reconciliation"), user);
+		jdbcTemplate.queryForObject("SELECT create_transactions_partition('1990-02-01')", Boolean.class);
+		try {
+			jdbcTemplate.queryForObject("SELECT archive_transactions_partition('1990-02-01', NULL)", Boolean.class);
+
+			transactionService.createTransaction(new TransactionDto(false, LocalDateTime.of(1990, 2, 16, 12, 0), 40.0, "reconciliation"), user);
+			assertFalse(jdbcTemplate.queryForObject("SELECT create_transactions_partition('1990-02-01')", Boolean.class));
+			assertNull(jdbcTemplate.queryForObject("SELECT to_regclass('transactions_1990_02')", String.class));
+			assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?", Integer.class, user.getId()));
+			assertTrue(balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), false).isEmpty());
+
+			// a partition made for the month anyway is merged into the archived one when it is archived
+			jdbcTemplate.execute("CREATE TABLE transactions_1990_02 PARTITION OF transactions FOR VALUES FROM ('1990-02-01') TO ('1990-03-01')");
+			transactionService.createTransaction(new TransactionDto(false, LocalDateTime.of(1990, 2, 17, 12, 0), 10.0, "reconciliation"), user);
+			assertTrue(jdbcTemplate.queryForObject("SELECT archive_transactions_partition('1990-02-01', NULL)", Boolean.class));
+			assertNull(jdbcTemplate.queryForObject("SELECT to_regclass('transactions_1990_02')", String.class));
+			assertEquals(3, jdbcTemplate.queryForObject(
+					"SELECT COUNT(*) FROM archive.transactions_1990_02 WHERE user_id = ?", Integer.class, user.getId()));
+			assertTrue(balanceReconciliationService.reconcileChunk(user.getId(), user.getId(), false).isEmpty());
+			assertEquals(50.0, balance(), 1e-9);
+		} finally {
+			jdbcTemplate.execute("DROP TABLE IF EXISTS archive.transactions_1990_02");
+			jdbcTemplate.execute("DROP TABLE IF EXISTS transactions_1990_02");
+		}
+	}
+}
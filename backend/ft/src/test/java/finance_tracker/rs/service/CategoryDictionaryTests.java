@@ -0,0 +1,48 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class CategoryDictionaryTests {
+	@Autowired
+	private CategoryDictionary categoryDictionary;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void aRolledBackCategoryNeverReachesTheSharedSnapshot() {
+		String name = "dictionary-" + UUID.randomUUID();
+		Long phantom = transactionTemplate.execute(status -> {
+			Category category = categoryDictionary.resolve(name);
+			// the inserting transaction sees its own category
+			assertEquals(name, categoryDictionary.name(category.getId()));
+			assertEquals(category.getId(), categoryDictionary.resolve(name).getId());
+			status.setRollbackOnly();
+			return category.getId();
+		});
+
+		assertNull(categoryDictionary.name(phantom));
+		assertFalse(categoryDictionary.all().stream().anyMatch(c -> c.getName().equals(name)));
+
+		Category category = categoryDictionary.resolve(name);
+		try {
+			assertEquals(name, jdbcTemplate.queryForObject("SELECT name FROM category WHERE id = ?", String.class, category.getId()));
+			assertEquals(name, categoryDictionary.name(category.getId()));
+		} finally {
+			jdbcTemplate.update("DELETE FROM category WHERE id = ?", category.getId());
+		}
+	}
+}
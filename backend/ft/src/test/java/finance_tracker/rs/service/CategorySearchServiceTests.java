@@ -0,0 +1,49 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.CategorySuggestion;
+import finance_tracker.rs.model.dto.TransactionDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class CategorySearchServiceTests extends UserFixture {
+	@Autowired
+	private CategorySearchService categorySearchService;
+	@Autowired
+	private TransactionService transactionService;
+
+	CategorySearchServiceTests() {
+		super("search");
+	}
+
+	@Test
+	void ranksExactThenPrefixThenWordThenInfix() {
+		use("searchrank-myrankcheck", 5);
+		use("searchrank my-rankcheck", 4);
+		use("rankcheckbar", 1);
+		use("rankcheckapple", 1);
+		use("rankcheck tea", 3);
+		use("rankcheck", 1);
+		use("rankchec", 9);
+
+		// more used first within a rank, then by name
+		assertEquals(List.of("rankcheck", "rankcheck tea", "rankcheckapple", "rankcheckbar",
+						"searchrank my-rankcheck", "searchrank-myrankcheck"),
+				categorySearchService.search("RankCheck", 10, user).stream().map(CategorySuggestion::name).toList());
+		assertEquals(List.of("rankcheck", "rankcheck tea"),
+				categorySearchService.search(" rankcheck ", 2, user).stream().map(CategorySuggestion::name).toList());
+		assertEquals(3, categorySearchService.search("rankcheck tea", 10, user).get(0).count());
+	}
+
+	private void use(String category, int times) {
+		for (int i = 0; i < times; i++) {
+			transactionService.createTransaction(new TransactionDto(false, LocalDateTime.now(), 1.0, category), user);
+		}
+	}
+}
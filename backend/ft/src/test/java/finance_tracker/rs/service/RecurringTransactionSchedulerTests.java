@@ -0,0 +1,101 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.RecurrenceFrequency;
+import finance_tracker.rs.model.dto.RecurringTransactionDto;
+import finance_tracker.rs.model.dto.RecurringTransactionView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// the schedule is off, so only the test materializes
+@SpringBootTest(properties = {
+		"transactions.recurring.cron=-",
+		"transactions.recurring.max-past-occurrences=10",
+		"transactions.recurring.max-per-user=3"})
+class RecurringTransactionSchedulerTests extends UserFixture {
+	@Autowired
+	private RecurringTransactionScheduler recurringTransactionScheduler;
+	@Autowired
+	private RecurringTransactionService recurringTransactionService;
+
+	RecurringTransactionSchedulerTests() {
+		super("recurring");
+	}
+
+	// next year, so the rules start in the future and pass the backfill limit
+	@Test
+	void materializesDueOccurrencesOnce() {
+		int y = LocalDate.now().getYear() + 1;
+		LocalDateTime now = LocalDateTime.of(y, 4, 15, 12, 0);
+		RecurringTransactionView salary = recurringTransactionService.createRecurringTransaction(new RecurringTransactionDto(
+				true, 1000.0, "recurring-salary", RecurrenceFrequency.MONTHLY, null, LocalDateTime.of(y, 1, 31, 9, 0), null), user);
+		RecurringTransactionView gym = recurringTransactionService.createRecurringTransaction(new RecurringTransactionDto(
+				false, 10.0, "recurring-gym", RecurrenceFrequency.WEEKLY, 1, LocalDateTime.of(y, 4, 1, 8, 0), LocalDate.of(y, 4, 10)), user);
+		recurringTransactionService.createRecurringTransaction(new RecurringTransactionDto(
+				false, 5.0, "recurring-later", RecurrenceFrequency.DAILY, 1, LocalDateTime.of(y, 5, 1, 0, 0), null), user);
+
+		// the return value counts every user's rules that were due, so only this user's rows are checked
+		recurringTransactionScheduler.materializeDue(now);
+
+		List<LocalDateTime> dates = jdbcTemplate.queryForList(
+				"SELECT date FROM transactions WHERE user_id = ? ORDER BY date", LocalDateTime.class, user.getId());
+		assertEquals(List.of(
+				LocalDateTime.of(y, 1, 31, 9, 0),
+				YearMonth.of(y, 2).atEndOfMonth().atTime(9, 0),
+				LocalDateTime.of(y, 3, 31, 9, 0),
+				LocalDateTime.of(y, 4, 1, 8, 0),
+				LocalDateTime.of(y, 4, 8, 8, 0)), dates);
+		assertEquals(2980.0, balance(), 1e-9);
+		assertEquals(2000.0, checkpoint(LocalDate.of(y, 2, 1)), 1e-9);
+		assertEquals(2980.0, checkpoint(LocalDate.of(y, 4, 1)), 1e-9);
+		assertEquals(-20.0, jdbcTemplate.queryForObject(
+				"SELECT SUM(income_sum - expense_sum) FROM monthly_rollup WHERE user_id = ? AND month = ?",
+				Double.class, user.getId(), LocalDate.of(y, 4, 1)), 1e-9);
+
+		List<RecurringTransactionView> rules = recurringTransactionService.getRecurringTransactions(user);
+		assertEquals(LocalDateTime.of(y, 4, 30, 9, 0), rules.get(0).nextRun());
+		assertNull(rules.get(1).nextRun());
+		assertEquals(salary.id(), rules.get(0).id());
+		assertEquals(gym.id(), rules.get(1).id());
+
+		recurringTransactionScheduler.materializeDue(now);
+		assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?", Integer.class, user.getId()));
+		assertEquals(2980.0, balance(), 1e-9);
+	}
+
+	@Test
+	void limitsBackfillAndRulesPerUser() {
+		LocalDateTime now = LocalDateTime.now();
+		assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+				() -> create(RecurrenceFrequency.DAILY, now.minusDays(10), null)).getStatusCode());
+		// ten due occurrences, or only six before the end date
+		create(RecurrenceFrequency.DAILY, now.minusDays(9), null);
+		create(RecurrenceFrequency.DAILY, now.minusDays(300), now.minusDays(295).toLocalDate());
+		create(RecurrenceFrequency.YEARLY, now.minusYears(5), null);
+
+		assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+				() -> create(RecurrenceFrequency.MONTHLY, now.plusDays(1), null)).getStatusCode());
+		assertEquals(3, recurringTransactionService.getRecurringTransactions(user).size());
+	}
+
+	private RecurringTransactionView create(RecurrenceFrequency frequency, LocalDateTime start, LocalDate end) {
+		return recurringTransactionService.createRecurringTransaction(
+				new RecurringTransactionDto(false, 1.0, "recurring-limits", frequency, 1, start, end), user);
+	}
+
+	private double checkpoint(LocalDate month) {
+		return jdbcTemplate.queryForObject("SELECT balance FROM balance_checkpoint WHERE user_id = ? AND month = ?",
+				Double.class, user.getId(), month);
+	}
+}
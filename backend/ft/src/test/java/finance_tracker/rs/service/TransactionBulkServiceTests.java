@@ -0,0 +1,123 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.BulkUpdateResult;
+import finance_tracker.rs.model.dto.TransactionDto;
+import finance_tracker.rs.model.dto.TransactionFilter;
+import finance_tracker.rs.model.dto.TransactionView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+class TransactionBulkServiceTests extends UserFixture {
+	@Autowired
+	private TransactionBulkService transactionBulkService;
+	@Autowired
+	private TransactionService transactionService;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	TransactionBulkServiceTests() {
+		super("bulk");
+	}
+
+	@Test
+	void deletesByFilterAndIdsAndMovesTheBalance() {
+		create(true, 1000.0, "bulk-salary");
+		Long keep = create(false, 40.0, "bulk-food");
+		Long byId = create(false, 60.0, "bulk-food");
+		create(false, 5.0, "bulk-bad-import");
+		create(false, 7.0, "bulk-bad-import");
+
+		BulkUpdateResult byFilter = transactionBulkService.delete(filter("bulk-bad-import"), null, user);
+		assertEquals(2, byFilter.affected());
+		assertEquals(900.0, byFilter.balance(), 1e-9);
+
+		BulkUpdateResult byIds = transactionBulkService.delete(null, List.of(byId), user);
+		assertEquals(1, byIds.affected());
+		assertEquals(960.0, byIds.balance(), 1e-9);
+
+		assertFalse(transactionService.deleteTransaction(byId, user));
+		assertEquals(1, transactionBulkService.delete(null, List.of(keep), user).affected());
+		assertEquals(1000.0, balance(), 1e-9);
+		assertEquals(1000.0, jdbcTemplate.queryForObject(
+				"SELECT SUM(income_sum - expense_sum) FROM monthly_rollup WHERE user_id = ?", Double.class, user.getId()), 1e-9);
+	}
+
+	@Test
+	void recategorizesAndKeepsTheBalance() {
+		create(false, 40.0, "bulk-food");
+		create(false, 60.0, "bulk-food");
+		create(true, 100.0, "bulk-salary");
+
+		BulkUpdateResult result = transactionBulkService.recategorize(filter("bulk-food"), null, "bulk-groceries", user);
+		assertEquals(2, result.affected());
+		assertEquals(0.0, result.balance(), 1e-9);
+		assertEquals(100.0, jdbcTemplate.queryForObject(
+				"SELECT r.expense_sum FROM monthly_rollup r JOIN category c ON c.id = r.category_id " +
+						"WHERE r.user_id = ? AND c.name = 'bulk-groceries'", Double.class, user.getId()), 1e-9);
+		assertEquals(0L, jdbcTemplate.queryForObject(
+				"SELECT r.count FROM monthly_rollup r JOIN category c ON c.id = r.category_id " +
+						"WHERE r.user_id = ? AND c.name = 'bulk-food'", Long.class, user.getId()));
+	}
+
+	@Test
+	void selectsTheSameRowsAsTheListEndpoint() {
+		LocalDateTime day = LocalDateTime.of(2026, 3, 10, 12, 0);
+		create(true, 100.0, "bulk-salary", day);
+		create(false, 40.0, "bulk-food", day.plusDays(1));
+		create(false, 60.0, "bulk-Food court", day.plusDays(2));
+		create(false, 5.0, "bulk-bad-import", day.plusDays(3));
+		create(true, 7.0, "bulk-refund", day.plusDays(4));
+
+		for (TransactionFilter filter : List.of(
+				new TransactionFilter(true, null, null, null, null, null),
+				new TransactionFilter(null, day.plusDays(1), day.plusDays(3), null, null, null),
+				new TransactionFilter(null, null, null, 40.0, 60.0, null),
+				new TransactionFilter(null, null, null, null, null, "food"),
+				new TransactionFilter(false, null, null, 6.0, null, "bulk"),
+				new TransactionFilter(null, null, null, null, null, "no-such-category"))) {
+			Set<Long> listed = transactionService.getAllTransactions(filter, 0, 100, "date", "asc", user).stream()
+					.map(TransactionView::id)
+					.collect(Collectors.toSet());
+			assertEquals(listed, deletedBy(filter), filter.toString());
+		}
+	}
+
+	// what a bulk delete would take, rolled back
+	private Set<Long> deletedBy(TransactionFilter filter) {
+		return transactionTemplate.execute(status -> {
+			Set<Long> deleted = new HashSet<>(ids());
+			transactionBulkService.delete(filter, null, user);
+			deleted.removeAll(ids());
+			status.setRollbackOnly();
+			return deleted;
+		});
+	}
+
+	private List<Long> ids() {
+		return jdbcTemplate.queryForList("SELECT id FROM transactions WHERE user_id = ?", Long.class, user.getId());
+	}
+
+	private Long create(boolean income, double amount, String category) {
+		return create(income, amount, category, LocalDateTime.now());
+	}
+
+	private Long create(boolean income, double amount, String category, LocalDateTime date) {
+		return transactionService.createTransaction(new TransactionDto(income, date, amount, category), user).getId();
+	}
+
+	private static TransactionFilter filter(String category) {
+		return new TransactionFilter(null, null, null, null, null, category);
+	}
+}
@@ -0,0 +1,93 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.TransactionDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "transactions.group-commit.enabled=true")
+class TransactionGroupCommitterTests extends UserFixture {
+	private static final int THREADS = 16;
+	private static final int PER_THREAD = 20;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	TransactionGroupCommitterTests() {
+		super("group-commit");
+	}
+
+	@Test
+	void concurrentCreatesShareCommitsButNotIds() throws Exception {
+		LocalDateTime date = LocalDate.now().withDayOfMonth(1).atTime(12, 0);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Long>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			for (int i = 0; i < PER_THREAD; i++) {
+				boolean income = i % 2 == 0;
+				futures.add(pool.submit(() -> {
+					start.await();
+					return transactionService.createTransaction(
+							new TransactionDto(income, date, income ? 3.0 : 1.0, "group-commit"), user).getId();
+				}));
+			}
+		}
+		// fails in the database, not in validation, so it is written in a batch with the others and retried alone
+		Future<Long> tooLong = pool.submit(() -> {
+			start.await();
+			return transactionService.createTransaction(new TransactionDto(true, date, 1000.0, "x".repeat(300)), user).getId();
+		});
+		start.countDown();
+
+		Set<Long> ids = new HashSet<>();
+		for (Future<Long> future : futures) {
+			ids.add(future.get());
+		}
+		assertThrows(ExecutionException.class, tooLong::get);
+		pool.shutdown();
+
+		int total = THREADS * PER_THREAD;
+		assertEquals(total, ids.size());
+		double expected = total / 2 * (3.0 - 1.0);
+		assertEquals(expected, balance(), 1e-9);
+		assertEquals(total, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE user_id = ?", Integer.class, user.getId()));
+		assertEquals(expected, jdbcTemplate.queryForObject(
+				"SELECT SUM(income_sum - expense_sum) FROM monthly_rollup WHERE user_id = ?", Double.class, user.getId()), 1e-9);
+		assertEquals(expected, jdbcTemplate.queryForObject(
+				"SELECT balance FROM balance_checkpoint WHERE user_id = ? AND month = ?", Double.class, user.getId(), date.toLocalDate()), 1e-9);
+	}
+
+	@Test
+	void anInvalidCreateIsRejectedBeforeItQueues() {
+		LocalDateTime now = LocalDateTime.now();
+		assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+				() -> transactionService.createTransaction(new TransactionDto(true, now, null, "group-commit"), user)).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+				() -> transactionService.createTransaction(new TransactionDto(true, now, 1.0, null), user)).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+				() -> transactionService.createTransaction(new TransactionDto(true, null, 1.0, "group-commit"), user)).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+				() -> transactionService.createTransaction(new TransactionDto(true, now, 1.0, "group\ncommit"), user)).getStatusCode());
+
+		transactionService.createTransaction(new TransactionDto(true, now, 5.0, "group-commit"), user);
+		assertEquals(5.0, balance(), 1e-9);
+	}
+}
@@ -0,0 +1,72 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.ImportResult;
+import finance_tracker.rs.model.dto.TransactionDto;
+import finance_tracker.rs.model.dto.TransactionFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class TransactionImportServiceTests extends UserFixture {
+	private static final TransactionFilter ALL = new TransactionFilter(null, null, null, null, null, null);
+
+	@Autowired
+	private TransactionImportService transactionImportService;
+	@Autowired
+	private TransactionExportService transactionExportService;
+	@Autowired
+	private TransactionService transactionService;
+
+	TransactionImportServiceTests() {
+		super("import");
+	}
+
+	@Test
+	void importsWhatItExports() throws Exception {
+		LocalDateTime date = LocalDateTime.of(2026, 3, 14, 9, 30);
+		transactionService.createTransaction(new TransactionDto(true, date, 100.0, "import, \"quoted\""), user);
+		transactionService.createTransaction(new TransactionDto(false, date.plusDays(1), 25.5, "import plain"), user);
+
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		transactionExportService.export(ALL, false, user, csv);
+		ImportResult result = transactionImportService.importTransactions(new ByteArrayInputStream(csv.toByteArray()), "text/csv", user);
+
+		assertEquals(2, result.imported());
+		assertEquals(0, result.failed());
+		assertEquals(2 * (100.0 - 25.5), balance(), 1e-9);
+		assertEquals(List.of("import plain", "import plain", "import, \"quoted\"", "import, \"quoted\""),
+				jdbcTemplate.queryForList("SELECT c.name FROM transactions t JOIN category c ON c.id = t.category_id " +
+						"WHERE t.user_id = ? ORDER BY c.name", String.class, user.getId()));
+	}
+
+	// a line break would split an exported row in two
+	@Test
+	void rejectsCategoriesWithControlCharacters() throws Exception {
+		LocalDateTime now = LocalDateTime.now();
+		for (String category : List.of("import\nline", "import\r\nline", "import\ttab")) {
+			assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+					() -> transactionService.createTransaction(new TransactionDto(false, now, 1.0, category), user)).getStatusCode());
+		}
+
+		String ndjson = "{\"isIncome\":false,\"date\":\"2026-03-14T09:30:00\",\"amount\":1.0,\"category\":\"import\\nline\"}\n" +
+				"{\"isIncome\":false,\"date\":\"2026-03-14T09:30:00\",\"amount\":1.0,\"category\":\"import ok\"}\n";
+		ImportResult result = transactionImportService.importTransactions(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), "application/x-ndjson", user);
+		assertEquals(1, result.imported());
+		assertEquals(1, result.failed());
+		assertEquals(1, result.errors().get(0).line());
+		assertEquals(-1.0, balance(), 1e-9);
+	}
+}
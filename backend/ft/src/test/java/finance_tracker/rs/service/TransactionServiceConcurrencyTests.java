@@ -0,0 +1,67 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.TransactionDto;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class TransactionServiceConcurrencyTests extends UserFixture {
+	private static final Logger log = LoggerFactory.getLogger(TransactionServiceConcurrencyTests.class);
+	private static final int THREADS = 32;
+	private static final int PER_THREAD = 50;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	TransactionServiceConcurrencyTests() {
+		super("concurrency");
+	}
+
+	@Test
+	void concurrentCreatesDoNotLoseBalanceUpdates() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < PER_THREAD; i++) {
+					boolean income = i % 2 == 0;
+					transactionService.createTransaction(
+							new TransactionDto(income, LocalDateTime.now(), income ? 3.0 : 1.0, "concurrency"), user);
+				}
+				return null;
+			}));
+		}
+
+		long started = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long millis = (System.nanoTime() - started) / 1_000_000;
+		pool.shutdown();
+
+		int total = THREADS * PER_THREAD;
+		log.info("{} concurrent creates on one user in {} ms ({}/s)", total, millis, total * 1000 / Math.max(1, millis));
+
+		double expected = THREADS * (PER_THREAD / 2) * (3.0 - 1.0);
+		assertEquals(expected, userRepository.findById(user.getId()).orElseThrow().getBalance(), 1e-6);
+		assertEquals(expected, jdbcTemplate.queryForObject(
+				"SELECT balance FROM balance_checkpoint WHERE user_id = ? ORDER BY month DESC LIMIT 1", Double.class, user.getId()), 1e-6);
+	}
+}
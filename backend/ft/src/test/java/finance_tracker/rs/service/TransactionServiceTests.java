@@ -0,0 +1,56 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.dto.TransactionDto;
+import finance_tracker.rs.model.dto.TransactionFilter;
+import finance_tracker.rs.model.dto.TransactionView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class TransactionServiceTests extends UserFixture {
+	private static final TransactionFilter ALL = new TransactionFilter(null, null, null, null, null, null);
+
+	@Autowired
+	private TransactionService transactionService;
+
+	TransactionServiceTests() {
+		super("sort");
+	}
+
+	@Test
+	void sortsByCategoryName() {
+		// the later name gets the lower category id
+		Long zzz = create("sort-zzz-b");
+		Long aaa = create("sort-aaa-a");
+		Long aaa2 = create("sort-aaa-a");
+
+		assertEquals(List.of(aaa, aaa2, zzz), ids("category", "asc"));
+		assertEquals(List.of(zzz, aaa2, aaa), ids("category", "desc"));
+	}
+
+	@Test
+	void rejectsUnknownSortKeys() {
+		for (String sortBy : List.of("user", "id", "category.name", "nope")) {
+			assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+					() -> transactionService.getAllTransactions(ALL, 0, 10, sortBy, "asc", user)).getStatusCode());
+		}
+	}
+
+	private List<Long> ids(String sortBy, String sortDirection) {
+		return transactionService.getAllTransactions(ALL, 0, 10, sortBy, sortDirection, user)
+				.stream().map(TransactionView::id).toList();
+	}
+
+	private Long create(String category) {
+		return transactionService.createTransaction(new TransactionDto(false, LocalDateTime.now(), 1.0, category), user).getId();
+	}
+}
@@ -0,0 +1,51 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.model.User;
+import finance_tracker.rs.model.UserRole;
+import finance_tracker.rs.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+// A fresh user for each test, deleted afterwards with everything it wrote. Tests share the database, so they
+// should only look at this user's rows.
+abstract class UserFixture {
+	@Autowired
+	protected UserRepository userRepository;
+	@Autowired
+	protected JdbcTemplate jdbcTemplate;
+
+	protected User user;
+
+	private final String usernamePrefix;
+
+	protected UserFixture(String usernamePrefix) {
+		this.usernamePrefix = usernamePrefix;
+	}
+
+	@BeforeEach
+	void createUser() {
+		user = new User();
+		user.setUsername(usernamePrefix + "-" + UUID.randomUUID());
+		user.setPassword("unused");
+		user.setRole(UserRole.ROLE_CLIENT);
+		user.setEnabled(true);
+		user = userRepository.save(user);
+	}
+
+	// recurring rules go with the user through their foreign key
+	@AfterEach
+	void deleteUser() {
+		jdbcTemplate.update("DELETE FROM transactions WHERE user_id = ?", user.getId());
+		jdbcTemplate.update("DELETE FROM monthly_rollup WHERE user_id = ?", user.getId());
+		jdbcTemplate.update("DELETE FROM balance_checkpoint WHERE user_id = ?", user.getId());
+		userRepository.deleteById(user.getId());
+	}
+
+	protected double balance() {
+		return jdbcTemplate.queryForObject("SELECT balance FROM users WHERE id = ?", Double.class, user.getId());
+	}
+}
@@ -0,0 +1,40 @@
+package finance_tracker.rs.service;
+
+import finance_tracker.rs.configuration.UserStatusCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserServiceTests extends UserFixture {
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private UserStatusCache userStatusCache;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	UserServiceTests() {
+		super("user-service");
+	}
+
+	// a request between the delete and its commit still sees the user and caches it as enabled
+	@Test
+	void aDeletedUserIsNotCachedAsEnabled() {
+		String username = user.getUsername();
+		assertTrue(userStatusCache.isEnabled(username));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			userService.deleteUser(username, user);
+			assertTrue(CompletableFuture.supplyAsync(() -> userStatusCache.isEnabled(username)).join());
+		});
+
+		assertFalse(userStatusCache.isEnabled(username));
+	}
+}
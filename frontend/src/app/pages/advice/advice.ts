@@ -1,20 +1,13 @@
 import { Component, OnInit } from '@angular/core';
 import { CommonModule, NgFor, NgIf, CurrencyPipe } from '@angular/common';
-import { TransactionService } from '../../services/transaction-service';
+import { TransactionService, TransactionSummary } from '../../services/transaction-service';
+import { forkJoin } from 'rxjs';
 import { Router } from '@angular/router';
 import { MatCardModule } from '@angular/material/card';
 import { MatButtonModule } from '@angular/material/button';
 import { MatIconModule } from '@angular/material/icon';
 import { ChangeDetectorRef } from '@angular/core';
 
-interface Transaction {
-  id: number;
-  date: string;
-  category: string;
-  amount: number;
-  income: boolean;
-}
-
 interface AdviceMessage {
   text: string;
   type: 'positive' | 'warning' | 'neutral' | 'tip';
@@ -44,7 +37,8 @@ interface SpendingAnalysis {
   styleUrls: ['./advice.scss']
 })
 export class Advice implements OnInit {
-  allTransactions: Transaction[] = [];
+  currentSummary: TransactionSummary | null = null;
+  previousSummary: TransactionSummary | null = null;
   monthlyIncome = 0;
   monthlyExpenses = 0;
   previousMonthIncome = 0;
@@ -100,17 +94,27 @@ export class Advice implements OnInit {
   }
 
   loadAllTransactions() {
-    console.log('Loading transactions for financial analysis...');
-    this.transactionService.getTransactions(0, 9999, 'date', 'desc', {})
-      .subscribe(page => {
-        this.allTransactions = page.content;
-        console.log('Total transactions loaded:', this.allTransactions.length);
+    const today = new Date();
+    const thirtyDaysAgo = new Date(today);
+    thirtyDaysAgo.setDate(today.getDate() - 30);
+    const sixtyDaysAgo = new Date(today);
+    sixtyDaysAgo.setDate(today.getDate() - 60);
+
+    console.log('Loading summaries for financial analysis...');
+    forkJoin({
+      current: this.transactionService.getSummary({ startDate: thirtyDaysAgo }),
+      previous: this.transactionService.getSummary({ startDate: sixtyDaysAgo, endDate: thirtyDaysAgo })
+    }).subscribe(({ current, previous }) => {
+        this.currentSummary = current;
+        this.previousSummary = previous;
+        console.log('Transactions in the last 60 days:', current.count + previous.count);
 
-        if (this.allTransactions.length > 0) {
+        if (this.hasTransactions()) {
           this.performComprehensiveAnalysis();
         } else {
           this.handleNoTransactions();
         }
+
         this.cdr.detectChanges();
       }, error => {
         console.error('Error loading transactions:', error);
@@ -123,6 +127,10 @@ export class Advice implements OnInit {
       });
   }
 
+  hasTransactions(): boolean {
+    return (this.currentSummary?.count ?? 0) + (this.previousSummary?.count ?? 0) > 0;
+  }
+
   performComprehensiveAnalysis() {
     this.analyzeCurrentMonth();
     this.analyzePreviousMonth();
@@ -132,67 +140,25 @@ export class Advice implements OnInit {
   }
 
   analyzeCurrentMonth() {
-    const today = new Date();
-    const thirtyDaysAgo = new Date(today);
-    thirtyDaysAgo.setDate(today.getDate() - 30);
-
-    const currentMonthTransactions = this.allTransactions.filter(t => {
-      const transactionDate = new Date(t.date);
-      return transactionDate >= thirtyDaysAgo;
-    });
-
-    this.monthlyIncome = currentMonthTransactions
-      .filter(t => t.income)
-      .reduce((sum, t) => sum + t.amount, 0);
-
-    this.monthlyExpenses = currentMonthTransactions
-      .filter(t => !t.income)
-      .reduce((sum, t) => sum + t.amount, 0);
-
+    this.monthlyIncome = this.currentSummary?.totalIncome ?? 0;
+    this.monthlyExpenses = this.currentSummary?.totalExpense ?? 0;
     this.dailyAverage = this.monthlyExpenses / 30;
   }
 
   analyzePreviousMonth() {
-    const today = new Date();
-    const thirtyDaysAgo = new Date(today);
-    thirtyDaysAgo.setDate(today.getDate() - 30);
-    const sixtyDaysAgo = new Date(today);
-    sixtyDaysAgo.setDate(today.getDate() - 60);
-
-    const previousMonthTransactions = this.allTransactions.filter(t => {
-      const transactionDate = new Date(t.date);
-      return transactionDate >= sixtyDaysAgo && transactionDate < thirtyDaysAgo;
-    });
-
-    this.previousMonthIncome = previousMonthTransactions
-      .filter(t => t.income)
-      .reduce((sum, t) => sum + t.amount, 0);
-
-    this.previousMonthExpenses = previousMonthTransactions
-      .filter(t => !t.income)
-      .reduce((sum, t) => sum + t.amount, 0);
+    this.previousMonthIncome = this.previousSummary?.totalIncome ?? 0;
+    this.previousMonthExpenses = this.previousSummary?.totalExpense ?? 0;
   }
 
   analyzeSpendingPatterns() {
-    const today = new Date();
-    const thirtyDaysAgo = new Date(today);
-    thirtyDaysAgo.setDate(today.getDate() - 30);
-
-    const recentTransactions = this.allTransactions.filter(t => {
-      const transactionDate = new Date(t.date);
-      return transactionDate >= thirtyDaysAgo && !t.income;
-    });
-
-    const spendingByCategory = recentTransactions.reduce((acc: { [key: string]: number }, t) => {
-      acc[t.category] = (acc[t.category] || 0) + t.amount;
-      return acc;
-    }, {});
-
-    this.topSpendingCategories = Object.entries(spendingByCategory)
-      .map(([category, amount]) => ({
-        category,
-        amount,
-        percentage: (amount / this.monthlyExpenses) * 100,
+    const categories = this.currentSummary?.categories ?? [];
+
+    this.topSpendingCategories = categories
+      .filter(c => c.expense > 0)
+      .map(c => ({
+        category: c.category,
+        amount: c.expense,
+        percentage: (c.expense / this.monthlyExpenses) * 100,
         trend: 'stable' as const // Would need more data to determine actual trend
       }))
       .sort((a, b) => b.amount - a.amount)
@@ -502,7 +468,7 @@ export class Advice implements OnInit {
   }
 
   generateNewAdvice() {
-    if (this.allTransactions.length > 0) {
+    if (this.hasTransactions()) {
       this.performComprehensiveAnalysis();
       this.cdr.detectChanges();
     }
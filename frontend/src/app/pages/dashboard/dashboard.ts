@@ -5,7 +5,8 @@ import { MatButtonModule } from '@angular/material/button';
 import { MatIconModule } from '@angular/material/icon';
 import { BaseChartDirective } from 'ng2-charts';
 import { ChartData, ChartOptions } from 'chart.js';
-import { TransactionService } from '../../services/transaction-service';
+import { TransactionService, TransactionSummary } from '../../services/transaction-service';
+import { forkJoin } from 'rxjs';
 import { Router } from '@angular/router';
 import { MatSort, Sort } from '@angular/material/sort';
 import { MatPaginator, PageEvent } from '@angular/material/paginator';
@@ -70,7 +71,7 @@ export class Dashboard implements OnInit {
 
   totalElements = 0;
   displayedColumns: string[] = ['date', 'category', 'amount', 'type', 'actions'];
-  allTransactions: Transaction[] = [];
+  summary: TransactionSummary | null = null;
   dataSource = new MatTableDataSource<Transaction>([]);
 
   pieChartData: ChartData<'pie'> = {
@@ -93,87 +94,51 @@ export class Dashboard implements OnInit {
     this.loadAllTransactions();
   }
   get totalIncome(): number {
-    return this.getFilteredTransactions()
-      .filter(transaction => transaction.income)
-      .reduce((sum, transaction) => sum + transaction.amount, 0);
+    return this.summary?.totalIncome ?? 0;
   }
 
   get totalExpenses(): number {
-    return this.getFilteredTransactions()
-      .filter(transaction => !transaction.income)
-      .reduce((sum, transaction) => sum + transaction.amount, 0);
+    return this.summary?.totalExpense ?? 0;
   }
 
   get balance(): number {
     return this.totalIncome - this.totalExpenses;
   }
 
-  private getFilteredTransactions(): Transaction[] {
-    let filteredTransactions = this.allTransactions;
-
-    if (this.filters.isIncome !== null) {
-      filteredTransactions = filteredTransactions.filter(t => t.income === this.filters.isIncome);
-    }
-    if (this.filters.category) {
-      filteredTransactions = filteredTransactions.filter(t => t.category === this.filters.category);
-    }
-
-    return filteredTransactions;
-  }
-
   loadAllTransactions() {
-    this.transactionService.getTransactions(0, 9999, this.sortBy, this.sortDirection, {})
-      .subscribe(page => {
-        this.allTransactions = page.content;
-        this.totalElements = this.allTransactions.length;
-        this.extractCategories();
-        this.updateView();
+    forkJoin({
+      summary: this.transactionService.getSummary(this.filters),
+      page: this.transactionService.getTransactions(this.page, this.size, this.sortBy, this.sortDirection, this.filters)
+    }).subscribe(({ summary, page }) => {
+        this.summary = summary;
+        if (this.filters.isIncome === null && !this.filters.category) {
+          this.extractCategories(summary);
+        }
+        this.updatePieChart(summary);
+        this.dataSource.data = page.content;
+        this.totalElements = page.totalElements;
+        this.cdr.detectChanges();
       });
   }
 
-
-  updateView() {
-    const filteredTransactions = this.getFilteredTransactions();
-
-    this.updatePieChart(filteredTransactions);
-    let sortedTransactions = [...filteredTransactions];
-    if (this.sortBy) {
-      sortedTransactions.sort((a: any, b: any) => {
-        const aValue = a[this.sortBy];
-        const bValue = b[this.sortBy];
-        let comparison = 0;
-
-        if (aValue > bValue) {
-          comparison = 1;
-        } else if (aValue < bValue) {
-          comparison = -1;
-        }
-        return this.sortDirection === 'asc' ? comparison : comparison * -1;
+  loadPage() {
+    this.transactionService.getTransactions(this.page, this.size, this.sortBy, this.sortDirection, this.filters)
+      .subscribe(page => {
+        this.dataSource.data = page.content;
+        this.totalElements = page.totalElements;
+        this.cdr.detectChanges();
       });
-    }
-
-    const startIndex = this.page * this.size;
-    const endIndex = startIndex + this.size;
-    this.dataSource.data = sortedTransactions.slice(startIndex, endIndex);
-
-    this.totalElements = filteredTransactions.length;
-    this.cdr.detectChanges();
   }
 
-  updatePieChart(transactions: Transaction[]) {
-    const grouped = transactions.reduce((acc: any, t) => {
-      acc[t.category] = (acc[t.category] || 0) + t.amount;
-      return acc;
-    }, {});
-
+  updatePieChart(summary: TransactionSummary) {
     this.pieChartData = {
-      labels: Object.keys(grouped),
-      datasets: [{ data: Object.values(grouped) }]
+      labels: summary.categories.map(c => c.category),
+      datasets: [{ data: summary.categories.map(c => c.income + c.expense) }]
     };
   }
 
-  extractCategories() {
-    this.availableCategories = [...new Set(this.allTransactions.map(t => t.category))].sort();
+  extractCategories(summary: TransactionSummary) {
+    this.availableCategories = summary.categories.map(c => c.category);
   }
 
   deleteTransaction(id: number) {
@@ -197,18 +162,18 @@ export class Dashboard implements OnInit {
     if (this.paginator) {
       this.paginator.firstPage();
     }
-    this.updateView();
+    this.loadAllTransactions();
   }
 
   onSortChange(sort: Sort) {
     this.sortBy = sort.active;
     this.sortDirection = sort.direction || 'asc';
-    this.updateView();
+    this.loadPage();
   }
 
   onPageChange(event: PageEvent) {
     this.page = event.pageIndex;
     this.size = event.pageSize;
-    this.updateView();
+    this.loadPage();
   }
 }
\ No newline at end of file
@@ -16,6 +16,30 @@ interface TransactionEdit {
   category: string;
   date: string;
 }
+export interface CategoryTotal {
+  category: string;
+  income: number;
+  expense: number;
+  count: number;
+}
+
+export interface MonthlyTotal {
+  month: string;
+  income: number;
+  expense: number;
+  count: number;
+}
+
+export interface TransactionSummary {
+  totalIncome: number;
+  totalExpense: number;
+  balance: number;
+  savingsRate: number;
+  count: number;
+  categories: CategoryTotal[];
+  months: MonthlyTotal[];
+}
+
 interface Page<T> {
   content: T[];
   totalElements: number;
@@ -65,11 +89,22 @@ export class TransactionService {
     minAmount?: number | null;
     maxAmount?: number | null;
   }, page: number, size: number, sortBy: string, sortDirection: string): HttpParams {
-    let params = new HttpParams()
+    return this.buildFilterParams(filters)
       .set('page', page.toString())
       .set('size', size.toString())
       .set('sortBy', sortBy)
       .set('sortDirection', sortDirection);
+  }
+
+  private buildFilterParams(filters: {
+    isIncome?: boolean | null;
+    category?: string | null;
+    startDate?: Date | null;
+    endDate?: Date | null;
+    minAmount?: number | null;
+    maxAmount?: number | null;
+  }): HttpParams {
+    let params = new HttpParams();
 
     if (filters.isIncome !== undefined && filters.isIncome !== null) {
       params = params.set('isIncome', filters.isIncome.toString());
@@ -115,8 +150,19 @@ export class TransactionService {
     });
   }
 
-
-
+  getSummary(filters: {
+    isIncome?: boolean | null;
+    category?: string | null;
+    startDate?: Date | null;
+    endDate?: Date | null;
+    minAmount?: number | null;
+    maxAmount?: number | null;
+  }): Observable<TransactionSummary> {
+    return this.http.get<TransactionSummary>(`${this.apiUrl}/summary`, {
+      params: this.buildFilterParams(filters),
+      headers: { Authorization: `Bearer ${this.jwt}` }
+    });
+  }
 
   deleteTransaction(id: number) {
     return this.http.delete(`${this.apiUrl}/${id}`, {